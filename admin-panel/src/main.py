@@ -16,6 +16,7 @@ import logging
 import secrets
 import hashlib
 import hmac
+import json
 import uuid
 from datetime import datetime, timedelta
 from typing import List, Optional, Literal
@@ -114,6 +115,10 @@ class TargetCreate(BaseModel):
     interval: int = Field(..., ge=10, le=3600)  # 10s to 1h
 
 
+# Probe types implemented by the Java agent (monitored_targets.probe_type)
+PROBE_TYPES = frozenset({"ICMP", "TCP", "HTTP", "DNS"})
+
+
 class SortColumn:
     """Whitelist for sortable columns - prevents SQL injection via getattr."""
     ALLOWED_COLUMNS = frozenset({
@@ -140,6 +145,7 @@ class MonitoringGroup(Base):
     id = Column(Integer, primary_key=True, index=True)
     name = Column(String(100), index=True)
     interval_seconds = Column(Integer, default=60)
+    alert_topic = Column(String(50), nullable=True)  # telegram_topics.name, NULL = default topic
     created_at = Column(DateTime(timezone=True), server_default=func.now())
     
     targets = relationship("MonitoredTarget", back_populates="group", cascade="all, delete-orphan")
@@ -156,10 +162,59 @@ class MonitoredTarget(Base):
     is_active = Column(Boolean, default=True)
     last_status = Column(String(20), nullable=True)
     last_check = Column(DateTime(timezone=True), nullable=True)
+    probe_type = Column(String(16), default="ICMP")
+    probe_port = Column(Integer, nullable=True)
+    probe_path = Column(String(255), nullable=True)
+    alert_topic = Column(String(50), nullable=True)  # overrides the group's topic
 
     group = relationship("MonitoringGroup", back_populates="targets")
 
 
+class AgentHeartbeat(Base):
+    """
+    Liveness record written by the Java agent.
+
+    The agent only persists monitored_targets rows on status transitions;
+    checked_through is a watermark: every active target has completed a
+    check at or after it.
+    """
+    __tablename__ = "agent_heartbeat"
+    __table_args__ = {'extend_existing': True}
+    agent_id = Column(String(64), primary_key=True)
+    last_seen = Column(DateTime(timezone=True), nullable=False)
+    checked_through = Column(DateTime(timezone=True), nullable=True)
+    active_targets = Column(Integer, default=0)
+
+
+class AgentCheckWatermark(Base):
+    """
+    Per check interval watermark written by the Java agent: every target with
+    this interval completed a check at or after checked_through (NULL while
+    one of them has not been checked since the agent started).
+    """
+    __tablename__ = "agent_check_watermarks"
+    __table_args__ = {'extend_existing': True}
+    agent_id = Column(String(64), primary_key=True)
+    interval_seconds = Column(Integer, primary_key=True)
+    checked_through = Column(DateTime(timezone=True), nullable=True)
+    targets = Column(Integer, default=0)
+    updated_at = Column(DateTime(timezone=True), nullable=False)
+
+
+def effective_last_check(target: MonitoredTarget, watermarks: dict) -> Optional[datetime]:
+    """
+    Last check of a target: its own row (last transition) or the watermark of
+    its check interval, whichever is newer. A target without a last_check of
+    its own is shown as never checked: the watermark may not cover it.
+    """
+    if target.last_check is None:
+        return None
+    checked_through = watermarks.get(target.interval_seconds)
+    if checked_through is None:
+        return target.last_check
+    return max(target.last_check, checked_through)
+
+
 class Employee(Base):
     __tablename__ = "employees"
     id = Column(Integer, primary_key=True, index=True)
@@ -283,6 +338,71 @@ docker_client = docker.from_env()
 redis_client = redis.Redis(host=REDIS_HOST, port=REDIS_PORT, decode_responses=True)
 
 
+# --- Monitoring Config Events (consumed by the Java agent) ---
+MONITORING_EVENT_SEQ_KEY = "netadmin_events:monitoring_seq"
+
+
+def monitoring_target_payload(target: "MonitoredTarget") -> dict:
+    """Serialize a target the way the Java agent's MonitoringEvent expects it."""
+    return {
+        "id": target.id,
+        "name": target.name,
+        "hostname": target.hostname,
+        "interval_seconds": target.interval_seconds,
+        "is_active": target.is_active if target.is_active is not None else True,
+        "probe_type": target.probe_type,
+        "probe_port": target.probe_port,
+        "probe_path": target.probe_path,
+    }
+
+
+def publish_monitoring_event(op: str, targets: Optional[list] = None, ids: Optional[List[int]] = None):
+    """
+    Notify the Java agent about changed monitoring targets.
+
+    op: UPSERT (targets created/edited), DELETE (ids removed) or RESYNC.
+    The sequence number lets the agent detect missed events and resync.
+    """
+    targets = targets or []
+    try:
+        event = {
+            "v": 1,
+            "type": "MONITORING",
+            "op": op,
+            "seq": redis_client.incr(MONITORING_EVENT_SEQ_KEY),
+            "ids": ids if ids is not None else [t.id for t in targets],
+            "targets": [monitoring_target_payload(t) for t in targets],
+        }
+        redis_client.publish("netadmin_events", json.dumps(event))
+    except Exception as e:
+        logger.error(f"Redis publish error: {e}")
+
+
+def known_alert_topics(db: Session) -> List[str]:
+    """Telegram topic names alerts can be routed to (managed by the bot)."""
+    try:
+        return [row[0] for row in db.execute(text("SELECT name FROM telegram_topics ORDER BY name"))]
+    except Exception as e:
+        logger.error(f"Failed to load telegram topics: {e}")
+        return []
+
+
+def validate_alert_topic(db: Session, alert_topic: Optional[str]) -> Optional[str]:
+    """Normalize an optional alert topic; 400 if it names a topic the bot does not know."""
+    alert_topic = (alert_topic or "").strip() or None
+    if alert_topic and alert_topic not in known_alert_topics(db):
+        raise HTTPException(status_code=400, detail=f"Unknown alert topic: {alert_topic}")
+    return alert_topic
+
+
+def publish_alert_routing_event():
+    """Tell the Java agent to reload its alert routing table (group topics changed)."""
+    try:
+        redis_client.publish("netadmin_events", json.dumps({"v": 1, "type": "ALERT_ROUTING", "op": "INVALIDATE"}))
+    except Exception as e:
+        logger.error(f"Redis publish error: {e}")
+
+
 # --- FastAPI App ---
 templates = Jinja2Templates(directory="src/templates")
 
@@ -428,6 +548,19 @@ async def startup_event():
                 conn.commit()
             except Exception as schema_err:
                 logger.warning(f"Schema sync warning (group_id): {schema_err}")
+            try:
+                conn.execute(text("ALTER TABLE monitored_targets ADD COLUMN IF NOT EXISTS probe_type VARCHAR(16) DEFAULT 'ICMP'"))
+                conn.execute(text("ALTER TABLE monitored_targets ADD COLUMN IF NOT EXISTS probe_port INTEGER"))
+                conn.execute(text("ALTER TABLE monitored_targets ADD COLUMN IF NOT EXISTS probe_path VARCHAR(255)"))
+                conn.commit()
+            except Exception as schema_err:
+                logger.warning(f"Schema sync warning (probe columns): {schema_err}")
+            try:
+                conn.execute(text("ALTER TABLE monitored_targets ADD COLUMN IF NOT EXISTS alert_topic VARCHAR(50)"))
+                conn.execute(text("ALTER TABLE monitoring_groups ADD COLUMN IF NOT EXISTS alert_topic VARCHAR(50)"))
+                conn.commit()
+            except Exception as schema_err:
+                logger.warning(f"Schema sync warning (alert_topic): {schema_err}")
                 
         logger.info("Database tables verified/created.")
     except Exception as e:
@@ -491,9 +624,17 @@ async def monitoring_page(request: Request, db: Session = Depends(get_db), _: bo
     """Monitoring groups & targets page."""
     groups = []
     ungrouped_targets = []
+    heartbeat = None
+    watermarks = {}
     try:
         groups = db.query(MonitoringGroup).order_by(MonitoringGroup.name).all()
         ungrouped_targets = db.query(MonitoredTarget).filter(MonitoredTarget.group_id == None).all()
+        heartbeat = db.query(AgentHeartbeat).order_by(AgentHeartbeat.last_seen.desc()).first()
+        if heartbeat:
+            watermarks = {
+                row.interval_seconds: row.checked_through
+                for row in db.query(AgentCheckWatermark).filter(AgentCheckWatermark.agent_id == heartbeat.agent_id)
+            }
     except Exception as e:
         logger.error(f"Monitoring Page Query Failed: {e}")
     
@@ -501,6 +642,10 @@ async def monitoring_page(request: Request, db: Session = Depends(get_db), _: bo
         "request": request,
         "groups": groups,
         "ungrouped_targets": ungrouped_targets,
+        "heartbeat": heartbeat,
+        "watermarks": watermarks,
+        "effective_last_check": effective_last_check,
+        "alert_topics": known_alert_topics(db),
         "current_page": "monitoring"
     })
 
@@ -508,13 +653,17 @@ async def monitoring_page(request: Request, db: Session = Depends(get_db), _: bo
 async def create_monitoring_group(
     name: str = Form(...),
     interval: int = Form(...),
+    alert_topic: Optional[str] = Form(None),
     db: Session = Depends(get_db),
     _: bool = Depends(verify_auth)
 ):
     """Create a new monitoring group."""
-    new_group = MonitoringGroup(name=name, interval_seconds=interval)
+    alert_topic = validate_alert_topic(db, alert_topic)
+    new_group = MonitoringGroup(name=name, interval_seconds=interval, alert_topic=alert_topic)
     db.add(new_group)
     db.commit()
+    if alert_topic:
+        publish_alert_routing_event()
     return RedirectResponse(url="/monitoring", status_code=status.HTTP_303_SEE_OTHER)
 
 @app.delete("/api/monitoring/groups/{group_id}")
@@ -522,16 +671,14 @@ async def delete_monitoring_group(group_id: int, db: Session = Depends(get_db),
     """Delete a monitoring group and all its targets."""
     try:
         # Delete all targets in this group first
+        target_ids = [row.id for row in db.query(MonitoredTarget.id).filter(MonitoredTarget.group_id == group_id)]
         db.query(MonitoredTarget).filter(MonitoredTarget.group_id == group_id).delete()
         # Then delete the group
         deleted = db.query(MonitoringGroup).filter(MonitoringGroup.id == group_id).delete()
         if not deleted:
             raise HTTPException(status_code=404, detail="Group not found")
         db.commit()
-        try:
-            redis_client.publish("netadmin_events", "CONFIG_UPDATE:MONITORING")
-        except:
-            pass
+        publish_monitoring_event("DELETE", ids=target_ids)
         logger.info(f"Deleted monitoring group: {group_id}")
         # Return empty 200 response for HTMX to handle cleanly
         return Response(status_code=200)
@@ -544,20 +691,36 @@ async def create_monitoring_target(
     name: str = Form(...),
     hostname: str = Form(...),
     group_id: Optional[int] = Form(None),
+    probe_type: str = Form("ICMP"),
+    probe_port: Optional[str] = Form(None),
+    probe_path: Optional[str] = Form(None),
+    alert_topic: Optional[str] = Form(None),
     db: Session = Depends(get_db),
     _: bool = Depends(verify_auth)
 ):
     """Create a new monitoring target within a group."""
+    probe_type = probe_type.upper()
+    probe_port = int(probe_port) if probe_port and probe_port.strip().isdigit() else None
+    if probe_type not in PROBE_TYPES:
+        raise HTTPException(status_code=400, detail=f"Unsupported probe type: {probe_type}")
+    if probe_type == "TCP" and not probe_port:
+        raise HTTPException(status_code=400, detail="TCP probe requires a port")
+    alert_topic = validate_alert_topic(db, alert_topic)
+
     interval = 60
     if group_id:
         group = db.query(MonitoringGroup).filter(MonitoringGroup.id == group_id).first()
         if group: interval = group.interval_seconds
 
-    new_target = MonitoredTarget(name=name, hostname=hostname, group_id=group_id, interval_seconds=interval)
+    new_target = MonitoredTarget(
+        name=name, hostname=hostname, group_id=group_id, interval_seconds=interval,
+        probe_type=probe_type, probe_port=probe_port, probe_path=probe_path or None,
+        alert_topic=alert_topic
+    )
     db.add(new_target)
     db.commit()
-    try: redis_client.publish("netadmin_events", "CONFIG_UPDATE:MONITORING")
-    except: pass
+    db.refresh(new_target)
+    publish_monitoring_event("UPSERT", targets=[new_target])
     return RedirectResponse(url="/monitoring", status_code=status.HTTP_303_SEE_OTHER)
 
 
@@ -788,12 +951,10 @@ async def create_target(
     )
     db.add(target)
     db.commit()
+    db.refresh(target)
     
     # Notify Java Agent
-    try:
-        redis_client.publish("netadmin_events", "CONFIG_UPDATE:MONITORING")
-    except Exception as e:
-        logger.error(f"Redis publish error: {e}")
+    publish_monitoring_event("UPSERT", targets=[target])
     
     logger.info(f"Created monitoring target: {validated.name}")
     return RedirectResponse(url="/", status_code=status.HTTP_303_SEE_OTHER)
@@ -813,10 +974,7 @@ async def delete_target(
     db.commit()
     
     # Notify Java Agent
-    try:
-        redis_client.publish("netadmin_events", "CONFIG_UPDATE:MONITORING")
-    except Exception as e:
-        logger.error(f"Redis publish error: {e}")
+    publish_monitoring_event("DELETE", ids=[target_id])
     
     logger.info(f"Deleted monitoring target: {target_id}")
     return Response(status_code=status.HTTP_200_OK)
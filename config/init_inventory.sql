@@ -67,9 +67,62 @@ CREATE TABLE IF NOT EXISTS monitored_targets (
     is_active BOOLEAN DEFAULT TRUE,
     last_status VARCHAR(50),
     last_check TIMESTAMP WITH TIME ZONE,
+    probe_type VARCHAR(16) DEFAULT 'ICMP', -- ICMP, TCP, HTTP, DNS
+    probe_port INT,                        -- TCP/HTTP/DNS port
+    probe_path VARCHAR(255),               -- HTTP path or URL, DNS query name
+    alert_topic VARCHAR(50),               -- telegram_topics.name; NULL = group's or default topic
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Agent liveness: monitored_targets rows only change on status transitions,
+-- checked_through is the oldest last check across all active targets
+-- (NULL until every target was checked since the agent started)
+CREATE TABLE IF NOT EXISTS agent_heartbeat (
+    agent_id VARCHAR(64) PRIMARY KEY,
+    last_seen TIMESTAMP WITH TIME ZONE NOT NULL,
+    checked_through TIMESTAMP WITH TIME ZONE,
+    active_targets INT DEFAULT 0
+);
+
+-- Per check interval: every target with that interval was checked at or after
+-- checked_through (NULL while one of them has not been checked since agent start)
+CREATE TABLE IF NOT EXISTS agent_check_watermarks (
+    agent_id VARCHAR(64) NOT NULL,
+    interval_seconds INT NOT NULL,
+    checked_through TIMESTAMP WITH TIME ZONE,
+    targets INT DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (agent_id, interval_seconds)
+);
+
+-- Check history: append-only, one partition per UTC day (check_results_yyyyMMdd).
+-- Partitions are created ahead and dropped after retention by the Java agent.
+CREATE TABLE IF NOT EXISTS check_results (
+    target_id BIGINT NOT NULL,
+    ts TIMESTAMP WITH TIME ZONE NOT NULL,
+    status VARCHAR(8) NOT NULL,       -- UP, DOWN, TIMEOUT, ERROR
+    rtt_us INT,
+    probe_type VARCHAR(8)
+) PARTITION BY RANGE (ts);
+CREATE INDEX IF NOT EXISTS idx_check_results_target_ts ON check_results (target_id, ts);
+
+-- RTT rollups: one row per target, resolution (1m, 5m, 1h) and window start.
+-- Written by the Java agent for closed windows only; merged on conflict.
+CREATE TABLE IF NOT EXISTS check_rollups (
+    target_id BIGINT NOT NULL,
+    resolution VARCHAR(4) NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    samples INT NOT NULL,
+    ok_samples INT NOT NULL,
+    rtt_samples INT NOT NULL,
+    rtt_min_us INT,
+    rtt_max_us INT,
+    rtt_sum_us BIGINT NOT NULL DEFAULT 0,
+    rtt_avg_us DOUBLE PRECISION GENERATED ALWAYS AS (rtt_sum_us::float8 / NULLIF(rtt_samples, 0)) STORED,
+    loss DOUBLE PRECISION GENERATED ALWAYS AS (1 - ok_samples::float8 / NULLIF(samples, 0)) STORED,
+    PRIMARY KEY (target_id, resolution, bucket_start)
+);
+
 -- AD Users (for MDaemon/LDAP sync)
 CREATE TABLE IF NOT EXISTS ad_users (
     email VARCHAR(255) PRIMARY KEY,
@@ -0,0 +1,180 @@
+package com.netadmin.agent.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs Redis pub/sub handlers on virtual threads, in order per channel.
+ *
+ * The listener container hands every message to {@link #wrap}ped listeners
+ * on its subscription thread; they only append it to the bounded queue of
+ * its channel and return. Each channel with queued messages has at most one
+ * drainer (a virtual thread) working it, so messages of one channel are
+ * handled strictly in arrival order while different channels proceed in
+ * parallel, at most {@code max-concurrency} at a time.
+ *
+ * A full channel queue drops the new message (counted and logged) rather
+ * than blocking the subscription thread, which would stall every channel.
+ */
+@Component
+public class ChannelOrderedDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChannelOrderedDispatcher.class);
+    // Messages one drainer handles before giving its permit to another channel
+    private static final int DRAIN_BATCH = 64;
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("redis-listener-", 0).factory());
+    private final Semaphore permits;
+    private final int queueCapacity;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ChannelQueue> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter dropped;
+
+    public ChannelOrderedDispatcher(
+            MeterRegistry meterRegistry,
+            @Value("${app.redis.listener.max-concurrency:4}") int maxConcurrency,
+            @Value("${app.redis.listener.queue-capacity:10000}") int queueCapacity) {
+        this.meterRegistry = meterRegistry;
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.dropped = Counter.builder("netadmin.redis.listener.dropped")
+                .description("Pub/sub messages dropped because their channel queue was full")
+                .register(meterRegistry);
+        Gauge.builder("netadmin.redis.listener.queue", queued, AtomicInteger::get)
+                .description("Pub/sub messages waiting for a handler")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Listener that queues messages for {@code delegate} instead of calling it inline.
+     */
+    public MessageListener wrap(MessageListener delegate) {
+        return (message, pattern) -> dispatch(delegate, message, pattern);
+    }
+
+    private void dispatch(MessageListener delegate, Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        ChannelQueue queue = channels.computeIfAbsent(channel, ChannelQueue::new);
+        if (!queue.offer(new Pending(delegate, message, pattern))) {
+            dropped.increment();
+            logger.warn("⚠️ Listener queue for {} full ({}), dropping message", channel, queueCapacity);
+            return;
+        }
+        queue.scheduleDrain();
+    }
+
+    private record Pending(MessageListener listener, Message message, byte[] pattern) {
+    }
+
+    /**
+     * Messages of one channel. {@code draining} guarantees a single drainer,
+     * which is what keeps the channel ordered.
+     */
+    private final class ChannelQueue {
+        private final String channel;
+        private final Queue<Pending> messages = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final Timer latency;
+
+        private ChannelQueue(String channel) {
+            this.channel = channel;
+            this.latency = Timer.builder("netadmin.redis.listener.latency")
+                    .description("Time to handle one pub/sub message")
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+        }
+
+        private boolean offer(Pending pending) {
+            while (true) {
+                int current = size.get();
+                if (current >= queueCapacity) {
+                    return false;
+                }
+                if (size.compareAndSet(current, current + 1)) {
+                    messages.add(pending);
+                    queued.incrementAndGet();
+                    return true;
+                }
+            }
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RuntimeException e) {
+                    draining.set(false);
+                    logger.debug("Listener executor not accepting tasks: {}", e.getMessage());
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                draining.set(false);
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                for (int i = 0; i < DRAIN_BATCH; i++) {
+                    Pending pending = messages.poll();
+                    if (pending == null) {
+                        break;
+                    }
+                    size.decrementAndGet();
+                    queued.decrementAndGet();
+                    handle(pending);
+                }
+            } finally {
+                permits.release();
+                draining.set(false);
+            }
+            // A message may have arrived after the last poll but before draining was cleared
+            if (!messages.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void handle(Pending pending) {
+            long startNanos = System.nanoTime();
+            try {
+                pending.listener().onMessage(pending.message(), pending.pattern());
+            } catch (Exception e) {
+                logger.error("❌ Listener for {} failed: {}", channel, e.getMessage(), e);
+            } finally {
+                latency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.netadmin.agent.service.RedisEventListener;
 import com.netadmin.agent.service.TaskListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.listener.PatternTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
@@ -15,15 +16,19 @@ public class RedisConfig {
     @Bean
     RedisMessageListenerContainer container(RedisConnectionFactory connectionFactory,
                                           MessageListenerAdapter taskListenerAdapter,
-                                          MessageListenerAdapter eventListenerAdapter) {
+                                          MessageListenerAdapter eventListenerAdapter,
+                                          ChannelOrderedDispatcher dispatcher) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(connectionFactory);
+        // Listeners only enqueue; handlers run on the dispatcher's bounded virtual threads
+        // instead of one new platform thread per message
+        container.setTaskExecutor(new SyncTaskExecutor());
         
         // Listen for Tasks
-        container.addMessageListener(taskListenerAdapter, new PatternTopic("netadmin_tasks"));
+        container.addMessageListener(dispatcher.wrap(taskListenerAdapter), new PatternTopic("netadmin_tasks"));
         
         // Listen for Config Events
-        container.addMessageListener(eventListenerAdapter, new PatternTopic("netadmin_events"));
+        container.addMessageListener(dispatcher.wrap(eventListenerAdapter), new PatternTopic("netadmin_events"));
         
         return container;
     }
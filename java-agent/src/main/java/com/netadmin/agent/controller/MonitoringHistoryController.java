@@ -0,0 +1,44 @@
+package com.netadmin.agent.controller;
+
+import com.netadmin.agent.service.ProbeJournal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Recent check history served straight from the local probe journal.
+ * Works while Postgres is down and never adds database load.
+ */
+@RestController
+@RequestMapping("/api/monitoring")
+public class MonitoringHistoryController {
+
+    private static final int MAX_LIMIT = 10_000;
+
+    private final ProbeJournal journal;
+
+    public MonitoringHistoryController(ProbeJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Newest-first results of one target.
+     *
+     * @param limit   maximum number of results (capped at 10000)
+     * @param minutes only results from the last N minutes; 0 = whatever the journal still holds
+     */
+    @GetMapping("/targets/{targetId}/history")
+    public List<ProbeJournal.Entry> history(
+            @PathVariable("targetId") long targetId,
+            @RequestParam(name = "limit", defaultValue = "100") int limit,
+            @RequestParam(name = "minutes", defaultValue = "60") int minutes) {
+        Instant since = minutes > 0 ? Instant.now().minus(Duration.ofMinutes(minutes)) : null;
+        return journal.recent(targetId, since, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+}
@@ -0,0 +1,43 @@
+package com.netadmin.agent.controller;
+
+import com.netadmin.agent.service.RttHistograms;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * RTT percentiles (p50/p95/p99/max, microseconds) from the in-memory
+ * per-target histograms, over a sliding window of whole minutes.
+ */
+@RestController
+@RequestMapping("/api/monitoring")
+public class MonitoringLatencyController {
+
+    private final RttHistograms histograms;
+
+    public MonitoringLatencyController(RttHistograms histograms) {
+        this.histograms = histograms;
+    }
+
+    /**
+     * @param minutes window length, capped at app.monitoring.histogram.window-minutes
+     */
+    @GetMapping("/targets/{targetId}/latency")
+    public ResponseEntity<RttHistograms.Latency> targetLatency(
+            @PathVariable("targetId") long targetId,
+            @RequestParam(name = "minutes", defaultValue = "5") int minutes) {
+        return ResponseEntity.of(histograms.latency(targetId, minutes));
+    }
+
+    /** All targets with samples in the window, slowest p95 first. */
+    @GetMapping("/latency")
+    public List<RttHistograms.Latency> latencies(
+            @RequestParam(name = "minutes", defaultValue = "5") int minutes) {
+        return histograms.latencies(minutes);
+    }
+}
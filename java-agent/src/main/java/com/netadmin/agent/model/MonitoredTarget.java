@@ -26,6 +26,15 @@ public class MonitoredTarget {
     @Column(name = "last_check")
     private LocalDateTime lastCheck;
 
+    @Column(name = "probe_type", length = 16)
+    private String probeType;
+
+    @Column(name = "probe_port")
+    private Integer probePort;
+
+    @Column(name = "probe_path")
+    private String probePath;
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -41,5 +50,11 @@ public class MonitoredTarget {
     public void setLastStatus(String lastStatus) { this.lastStatus = lastStatus; }
     public LocalDateTime getLastCheck() { return lastCheck; }
     public void setLastCheck(LocalDateTime lastCheck) { this.lastCheck = lastCheck; }
+    public String getProbeType() { return probeType; }
+    public void setProbeType(String probeType) { this.probeType = probeType; }
+    public Integer getProbePort() { return probePort; }
+    public void setProbePort(Integer probePort) { this.probePort = probePort; }
+    public String getProbePath() { return probePath; }
+    public void setProbePath(String probePath) { this.probePath = probePath; }
 }
 
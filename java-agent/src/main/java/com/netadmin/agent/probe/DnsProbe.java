@@ -0,0 +1,136 @@
+package com.netadmin.agent.probe;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * DNS server probe: sends one UDP query to hostname:port (53 by default) and is UP
+ * when the server answers with NOERROR or NXDOMAIN.
+ *
+ * {@code probe_path} is the name to query (type A); without it the root zone NS
+ * record is requested. Each query runs on its own virtual thread.
+ */
+@Component
+public class DnsProbe implements Probe {
+
+    private static final int DNS_PORT = 53;
+    private static final int TYPE_A = 1;
+    private static final int TYPE_NS = 2;
+    private static final int CLASS_IN = 1;
+    private static final int RCODE_NOERROR = 0;
+    private static final int RCODE_NXDOMAIN = 3;
+    private static final int MAX_RESPONSE_SIZE = 512;
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dns-probe-", 0).factory());
+
+    @Override
+    public ProbeType type() {
+        return ProbeType.DNS;
+    }
+
+    @Override
+    public CompletableFuture<ProbeResult> probe(ProbeRequest request) {
+        return CompletableFuture.supplyAsync(() -> query(request), executor)
+                .exceptionally(e -> ProbeResult.fromFailure(request, e));
+    }
+
+    private ProbeResult query(ProbeRequest request) {
+        InetSocketAddress server = new InetSocketAddress(request.hostname().trim(), request.portOr(DNS_PORT));
+        if (server.isUnresolved()) {
+            return ProbeResult.down(request, ProbeResult.UNKNOWN_HOST);
+        }
+
+        int queryId = ThreadLocalRandom.current().nextInt(0x10000);
+        byte[] query;
+        try {
+            query = buildQuery(queryId, request.path());
+        } catch (IllegalArgumentException e) {
+            return ProbeResult.error(request, ProbeResult.MISCONFIGURED);
+        }
+
+        long deadline = System.nanoTime() + request.timeout().toNanos();
+        try (DatagramSocket socket = new DatagramSocket()) {
+            socket.connect(server);
+            long start = System.nanoTime();
+            socket.send(new DatagramPacket(query, query.length));
+
+            byte[] buffer = new byte[MAX_RESPONSE_SIZE];
+            DatagramPacket response = new DatagramPacket(buffer, buffer.length);
+            while (true) {
+                long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+                if (remainingMillis <= 0) {
+                    return ProbeResult.timeout(request);
+                }
+                socket.setSoTimeout((int) remainingMillis);
+                socket.receive(response);
+
+                // Ignore stray datagrams that are not the answer to our query
+                if (response.getLength() < 12 || readShort(buffer, 0) != queryId || (buffer[2] & 0x80) == 0) {
+                    continue;
+                }
+                long rttNanos = System.nanoTime() - start;
+                int rcode = buffer[3] & 0x0F;
+                return rcode == RCODE_NOERROR || rcode == RCODE_NXDOMAIN
+                        ? ProbeResult.up(request, rttNanos)
+                        : ProbeResult.down(request, rttNanos, "DNS_RCODE_" + rcode);
+            }
+        } catch (SocketTimeoutException e) {
+            return ProbeResult.timeout(request);
+        } catch (IOException e) {
+            return ProbeResult.fromFailure(request, e);
+        }
+    }
+
+    static byte[] buildQuery(int id, String name) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        writeShort(out, id);
+        writeShort(out, 0x0100); // standard query, recursion desired
+        writeShort(out, 1);      // QDCOUNT
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, 0);
+
+        boolean root = name == null || name.isBlank() || ".".equals(name.trim());
+        if (!root) {
+            for (String label : name.trim().split("\\.")) {
+                byte[] bytes = label.getBytes(StandardCharsets.US_ASCII);
+                if (bytes.length == 0 || bytes.length > 63) {
+                    throw new IllegalArgumentException("Invalid DNS label in " + name);
+                }
+                out.write(bytes.length);
+                out.writeBytes(bytes);
+            }
+        }
+        out.write(0);
+        writeShort(out, root ? TYPE_NS : TYPE_A);
+        writeShort(out, CLASS_IN);
+        return out.toByteArray();
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write((value >> 8) & 0xFF);
+        out.write(value & 0xFF);
+    }
+
+    private static int readShort(byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xFF) << 8) | (buffer[offset + 1] & 0xFF);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,85 @@
+package com.netadmin.agent.probe;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP probe: UP when the server answers with a status below 400.
+ *
+ * {@code probe_path} is either a full URL or a path appended to
+ * {@code http(s)://hostname:port}. RTT is measured to the response headers;
+ * the body is discarded. Runs on the async {@link HttpClient} with its own
+ * virtual-thread executor.
+ */
+@Component
+public class HttpProbe implements Probe {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-probe-", 0).factory());
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(CONNECT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(executor)
+            .build();
+
+    @Override
+    public ProbeType type() {
+        return ProbeType.HTTP;
+    }
+
+    @Override
+    public CompletableFuture<ProbeResult> probe(ProbeRequest request) {
+        HttpRequest httpRequest;
+        try {
+            httpRequest = HttpRequest.newBuilder(buildUri(request))
+                    .timeout(request.timeout())
+                    .header("User-Agent", "netadmin-agent")
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ProbeResult.error(request, ProbeResult.MISCONFIGURED));
+        }
+
+        long start = System.nanoTime();
+        return client.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> {
+                    long rttNanos = System.nanoTime() - start;
+                    return response.statusCode() < 400
+                            ? ProbeResult.up(request, rttNanos)
+                            : ProbeResult.down(request, rttNanos, "HTTP_" + response.statusCode());
+                })
+                .exceptionally(e -> ProbeResult.fromFailure(request, e));
+    }
+
+    static URI buildUri(ProbeRequest request) {
+        String path = request.path();
+        if (path != null && (path.startsWith("http://") || path.startsWith("https://"))) {
+            return URI.create(path);
+        }
+
+        int port = request.portOr(80);
+        String scheme = port == 443 ? "https" : "http";
+        if (path == null || path.isBlank()) {
+            path = "/";
+        } else if (!path.startsWith("/")) {
+            path = "/" + path;
+        }
+        return URI.create(scheme + "://" + request.hostname().trim() + ":" + port + path);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,350 @@
+package com.netadmin.agent.probe;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process ICMP echo engine built on Linux unprivileged ICMP datagram sockets
+ * ({@code socket(AF_INET, SOCK_DGRAM, IPPROTO_ICMP)}), called through the FFM API.
+ *
+ * One socket is shared by every caller: requests are sent from the calling thread,
+ * a single receiver thread reads replies and completes the matching pending future
+ * by echo id/sequence. No process is ever spawned.
+ *
+ * Requires {@code net.ipv4.ping_group_range} to include the agent's group; when the
+ * socket cannot be opened the engine reports itself unavailable and callers fall back.
+ */
+@Component
+public class IcmpEchoEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(IcmpEchoEngine.class);
+
+    private static final int AF_INET = 2;
+    private static final int SOCK_DGRAM = 2;
+    private static final int IPPROTO_ICMP = 1;
+    private static final int SOL_SOCKET = 1;
+    private static final int SO_RCVTIMEO = 20;
+
+    private static final byte ICMP_ECHO_REQUEST = 8;
+    private static final byte ICMP_ECHO_REPLY = 0;
+    private static final int ICMP_HEADER_SIZE = 8;
+    private static final int PAYLOAD_SIZE = 8;
+    private static final int SOCKADDR_IN_SIZE = 16;
+    private static final int RECV_BUFFER_SIZE = 1500;
+    private static final int RECV_POLL_MILLIS = 200;
+    private static final int BIND_ATTEMPTS = 8;
+
+    private static final ValueLayout.OfShort NET_SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong NET_LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final boolean enabled;
+    private final Map<Integer, PendingEcho> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger(ThreadLocalRandom.current().nextInt(0x10000));
+
+    private MethodHandle socketHandle;
+    private MethodHandle bindHandle;
+    private MethodHandle setsockoptHandle;
+    private MethodHandle sendtoHandle;
+    private MethodHandle recvfromHandle;
+    private MethodHandle closeHandle;
+
+    private Arena arena;
+    private int fd = -1;
+    private int echoId;
+    private Thread receiver;
+    private volatile boolean running;
+
+    public IcmpEchoEngine(@Value("${app.monitoring.icmp.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            logger.info("ICMP echo engine disabled by configuration");
+            return;
+        }
+        if (!System.getProperty("os.name").toLowerCase().contains("linux")) {
+            logger.info("ICMP echo engine requires Linux ping sockets, falling back to legacy ping");
+            return;
+        }
+
+        try {
+            bindNativeFunctions();
+            arena = Arena.ofShared();
+
+            int socketFd = (int) socketHandle.invokeExact(AF_INET, SOCK_DGRAM, IPPROTO_ICMP);
+            if (socketFd < 0) {
+                logger.warn("Unable to open ICMP datagram socket (check net.ipv4.ping_group_range), falling back to legacy ping");
+                arena.close();
+                return;
+            }
+            fd = socketFd;
+            echoId = bindEchoId();
+            setReceiveTimeout(RECV_POLL_MILLIS);
+
+            running = true;
+            receiver = Thread.ofPlatform().daemon().name("IcmpEchoReceiver").start(this::receiveLoop);
+            logger.info("🛰️ ICMP echo engine ready (fd={}, id={})", fd, echoId);
+        } catch (Throwable e) {
+            logger.warn("ICMP echo engine unavailable: {}", e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            receiver.join(RECV_POLL_MILLIS * 5L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pending.values().forEach(echo -> echo.future.cancel(false));
+        pending.clear();
+        closeQuietly();
+        logger.info("ICMP echo engine closed");
+    }
+
+    public boolean isAvailable() {
+        return running;
+    }
+
+    /**
+     * Send one echo request and complete with the round-trip time in nanoseconds.
+     * Completes exceptionally with {@link java.util.concurrent.TimeoutException} when
+     * no reply arrives within {@code timeout}, or {@link IOException} if the send fails.
+     */
+    public CompletableFuture<Long> echo(Inet4Address address, Duration timeout) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IOException("ICMP echo engine is not available"));
+        }
+
+        PendingEcho echo = new PendingEcho(address);
+        int seq = reserveSequence(echo);
+        if (seq < 0) {
+            return CompletableFuture.failedFuture(new IOException("Too many outstanding ICMP echo requests"));
+        }
+        echo.future.whenComplete((rtt, error) -> pending.remove(seq, echo));
+        echo.future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        try (Arena call = Arena.ofConfined()) {
+            MemorySegment packet = call.allocate(ICMP_HEADER_SIZE + PAYLOAD_SIZE);
+            packet.set(ValueLayout.JAVA_BYTE, 0, ICMP_ECHO_REQUEST);
+            packet.set(ValueLayout.JAVA_BYTE, 1, (byte) 0);
+            packet.set(NET_SHORT, 2, (short) 0);
+            packet.set(NET_SHORT, 4, (short) echoId);
+            packet.set(NET_SHORT, 6, (short) seq);
+            packet.set(NET_LONG, 8, echo.sentNanos);
+            packet.set(NET_SHORT, 2, checksum(packet));
+
+            MemorySegment target = call.allocate(SOCKADDR_IN_SIZE);
+            writeSockaddr(target, address.getAddress(), 0);
+
+            long sent = (long) sendtoHandle.invokeExact(fd, packet, packet.byteSize(), 0, target, SOCKADDR_IN_SIZE);
+            if (sent < 0) {
+                echo.future.completeExceptionally(new IOException("sendto failed for " + address.getHostAddress()));
+            }
+        } catch (Throwable e) {
+            echo.future.completeExceptionally(e);
+        }
+        return echo.future;
+    }
+
+    private int reserveSequence(PendingEcho echo) {
+        for (int attempt = 0; attempt < 0x10000; attempt++) {
+            int seq = sequence.getAndIncrement() & 0xFFFF;
+            if (pending.putIfAbsent(seq, echo) == null) {
+                return seq;
+            }
+        }
+        return -1;
+    }
+
+    private void receiveLoop() {
+        MemorySegment buffer = arena.allocate(RECV_BUFFER_SIZE);
+        MemorySegment source = arena.allocate(SOCKADDR_IN_SIZE);
+        MemorySegment sourceLength = arena.allocate(ValueLayout.JAVA_INT);
+
+        while (running) {
+            try {
+                sourceLength.set(ValueLayout.JAVA_INT, 0, SOCKADDR_IN_SIZE);
+                long received = (long) recvfromHandle.invokeExact(fd, buffer, (long) RECV_BUFFER_SIZE, 0, source, sourceLength);
+                if (received < ICMP_HEADER_SIZE) {
+                    // Receive timeout (EAGAIN) or a runt datagram: re-check the running flag
+                    continue;
+                }
+                long now = System.nanoTime();
+
+                if (buffer.get(ValueLayout.JAVA_BYTE, 0) != ICMP_ECHO_REPLY) {
+                    continue;
+                }
+                int id = Short.toUnsignedInt(buffer.get(NET_SHORT, 4));
+                int seq = Short.toUnsignedInt(buffer.get(NET_SHORT, 6));
+                if (id != echoId) {
+                    continue;
+                }
+
+                PendingEcho echo = pending.get(seq);
+                if (echo == null || !echo.matches(source)) {
+                    logger.trace("Discarding unmatched ICMP echo reply seq={}", seq);
+                    continue;
+                }
+                echo.future.complete(now - echo.sentNanos);
+            } catch (Throwable e) {
+                if (running) {
+                    logger.error("ICMP receiver error: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private int bindEchoId() throws Throwable {
+        try (Arena call = Arena.ofConfined()) {
+            MemorySegment local = call.allocate(SOCKADDR_IN_SIZE);
+            for (int attempt = 0; attempt < BIND_ATTEMPTS; attempt++) {
+                int id = ThreadLocalRandom.current().nextInt(1, 0x10000);
+                writeSockaddr(local, new byte[4], id);
+                int rc = (int) bindHandle.invokeExact(fd, local, SOCKADDR_IN_SIZE);
+                if (rc == 0) {
+                    return id;
+                }
+            }
+        }
+        throw new IOException("Unable to bind ICMP echo identifier");
+    }
+
+    private void setReceiveTimeout(int millis) throws Throwable {
+        try (Arena call = Arena.ofConfined()) {
+            // struct timeval { long tv_sec; long tv_usec; }
+            MemorySegment timeval = call.allocate(16);
+            timeval.set(ValueLayout.JAVA_LONG, 0, millis / 1000);
+            timeval.set(ValueLayout.JAVA_LONG, 8, (millis % 1000) * 1000L);
+            int rc = (int) setsockoptHandle.invokeExact(fd, SOL_SOCKET, SO_RCVTIMEO, timeval, (int) timeval.byteSize());
+            if (rc != 0) {
+                throw new IOException("setsockopt(SO_RCVTIMEO) failed");
+            }
+        }
+    }
+
+    private void bindNativeFunctions() {
+        Linker linker = Linker.nativeLinker();
+        SymbolLookup libc = linker.defaultLookup();
+        socketHandle = downcall(linker, libc, "socket",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT));
+        bindHandle = downcall(linker, libc, "bind",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT));
+        setsockoptHandle = downcall(linker, libc, "setsockopt",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT,
+                        ValueLayout.ADDRESS, ValueLayout.JAVA_INT));
+        sendtoHandle = downcall(linker, libc, "sendto",
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG,
+                        ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT));
+        recvfromHandle = downcall(linker, libc, "recvfrom",
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG,
+                        ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS));
+        closeHandle = downcall(linker, libc, "close",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT));
+    }
+
+    private static MethodHandle downcall(Linker linker, SymbolLookup lookup, String name, FunctionDescriptor descriptor) {
+        MemorySegment symbol = lookup.find(name)
+                .orElseThrow(() -> new IllegalStateException("libc symbol not found: " + name));
+        return linker.downcallHandle(symbol, descriptor);
+    }
+
+    private void closeQuietly() {
+        running = false;
+        if (fd >= 0) {
+            try {
+                int ignored = (int) closeHandle.invokeExact(fd);
+            } catch (Throwable e) {
+                logger.debug("close() on ICMP socket failed: {}", e.getMessage());
+            }
+            fd = -1;
+        }
+        if (arena != null) {
+            arena.close();
+            arena = null;
+        }
+    }
+
+    /** struct sockaddr_in { sa_family_t family; in_port_t port; struct in_addr addr; char zero[8]; } */
+    private static void writeSockaddr(MemorySegment sockaddr, byte[] address, int port) {
+        sockaddr.fill((byte) 0);
+        sockaddr.set(ValueLayout.JAVA_SHORT_UNALIGNED, 0, (short) AF_INET);
+        sockaddr.set(NET_SHORT, 2, (short) port);
+        MemorySegment.copy(address, 0, sockaddr, ValueLayout.JAVA_BYTE, 4, 4);
+    }
+
+    private static short checksum(MemorySegment packet) {
+        long sum = 0;
+        for (long offset = 0; offset + 1 < packet.byteSize(); offset += 2) {
+            sum += Short.toUnsignedInt(packet.get(NET_SHORT, offset));
+        }
+        while ((sum >> 16) != 0) {
+            sum = (sum & 0xFFFF) + (sum >> 16);
+        }
+        return (short) ~sum;
+    }
+
+    /**
+     * Resolve a hostname to an IPv4 address usable by this engine.
+     * Returns null when the host only has IPv6 addresses.
+     */
+    public static Inet4Address resolveIpv4(String hostname) throws UnknownHostException {
+        for (InetAddress address : InetAddress.getAllByName(hostname)) {
+            if (address instanceof Inet4Address ipv4) {
+                return ipv4;
+            }
+        }
+        return null;
+    }
+
+    private static final class PendingEcho {
+        private final Inet4Address address;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+        private final long sentNanos = System.nanoTime();
+
+        private PendingEcho(Inet4Address address) {
+            this.address = address;
+        }
+
+        private boolean matches(MemorySegment sockaddr) {
+            byte[] expected = address.getAddress();
+            for (int i = 0; i < 4; i++) {
+                if (sockaddr.get(ValueLayout.JAVA_BYTE, 4 + i) != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.netadmin.agent.probe;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.net.Inet4Address;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ICMP echo probe.
+ *
+ * Uses the shared {@link IcmpEchoEngine} socket when available; name resolution and
+ * the blocking {@link LegacyPing} fallback run on this probe's own virtual threads.
+ */
+@Component
+public class IcmpProbe implements Probe {
+
+    private static final int ATTEMPTS = 2;
+
+    private final IcmpEchoEngine engine;
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("icmp-probe-", 0).factory());
+
+    public IcmpProbe(IcmpEchoEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public ProbeType type() {
+        return ProbeType.ICMP;
+    }
+
+    @Override
+    public CompletableFuture<ProbeResult> probe(ProbeRequest request) {
+        if (!engine.isAvailable()) {
+            return CompletableFuture.supplyAsync(() -> legacyPing(request), executor);
+        }
+
+        Duration attemptTimeout = request.timeout().dividedBy(ATTEMPTS);
+        return CompletableFuture
+                .supplyAsync(() -> resolve(request), executor)
+                .thenCompose(address -> address == null
+                        ? CompletableFuture.supplyAsync(() -> legacyPing(request), executor)
+                        : echo(request, address, attemptTimeout, ATTEMPTS))
+                .exceptionally(e -> ProbeResult.fromFailure(request, e));
+    }
+
+    private CompletableFuture<ProbeResult> echo(ProbeRequest request, Inet4Address address,
+                                                Duration attemptTimeout, int attemptsLeft) {
+        return engine.echo(address, attemptTimeout)
+                .thenApply(rttNanos -> ProbeResult.up(request, rttNanos))
+                .exceptionally(e -> ProbeResult.fromFailure(request, e))
+                .thenCompose(result -> result.status() == ProbeStatus.TIMEOUT && attemptsLeft > 1
+                        ? echo(request, address, attemptTimeout, attemptsLeft - 1)
+                        : CompletableFuture.completedFuture(result));
+    }
+
+    private Inet4Address resolve(ProbeRequest request) {
+        try {
+            return IcmpEchoEngine.resolveIpv4(request.hostname().trim());
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private ProbeResult legacyPing(ProbeRequest request) {
+        long start = System.nanoTime();
+        return LegacyPing.ping(request.hostname().trim(), (int) request.timeout().toMillis())
+                ? ProbeResult.up(request, System.nanoTime() - start)
+                : ProbeResult.timeout(request);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,119 @@
+package com.netadmin.agent.probe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking ping used only when the {@link IcmpEchoEngine} is unavailable
+ * (non-Linux host, ping sockets not permitted, IPv6-only target).
+ *
+ * Strategy:
+ * 1. Try Java InetAddress.isReachable() (fast but sometimes unreliable)
+ * 2. If inconclusive, fallback to system ping command
+ */
+final class LegacyPing {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacyPing.class);
+    private static final String OS_NAME = System.getProperty("os.name").toLowerCase();
+
+    private LegacyPing() {
+    }
+
+    static boolean ping(String hostname, int timeoutMs) {
+        // Method 1: InetAddress (quick check)
+        if (pingViaJava(hostname, timeoutMs)) {
+            logger.debug("Host {} is reachable (Java method)", hostname);
+            return true;
+        }
+
+        // Method 2: System ping (more reliable, but slower)
+        logger.debug("Java ping failed for {}, trying system ping...", hostname);
+        if (pingViaSystem(hostname, timeoutMs)) {
+            logger.debug("Host {} is reachable (System ping)", hostname);
+            return true;
+        }
+
+        logger.debug("Host {} is NOT reachable (all methods failed)", hostname);
+        return false;
+    }
+
+    /**
+     * Ping using Java InetAddress.isReachable().
+     * Fast but may fail due to firewall/ICMP restrictions.
+     */
+    private static boolean pingViaJava(String hostname, int timeoutMs) {
+        try {
+            InetAddress address = InetAddress.getByName(hostname);
+            boolean reachable = address.isReachable(timeoutMs);
+            logger.trace("InetAddress.isReachable({}) = {}", hostname, reachable);
+            return reachable;
+        } catch (Exception e) {
+            logger.trace("Java ping failed for {}: {}", hostname, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Ping using system command (ping utility).
+     * More reliable but requires external process.
+     */
+    private static boolean pingViaSystem(String hostname, int timeoutMs) {
+        try {
+            // Build platform-specific ping command
+            ProcessBuilder processBuilder;
+            
+            if (OS_NAME.contains("win")) {
+                // Windows: ping -n 1 -w 3000 hostname
+                processBuilder = new ProcessBuilder("ping", "-n", "1", "-w", String.valueOf(timeoutMs), hostname);
+            } else {
+                // Linux/Unix: ping -c 1 -W 3 hostname
+                int timeoutSeconds = Math.max(1, timeoutMs / 1000);
+                processBuilder = new ProcessBuilder("ping", "-c", "1", "-W", String.valueOf(timeoutSeconds), hostname);
+            }
+
+            processBuilder.redirectErrorStream(true);
+            Process process = processBuilder.start();
+
+            // Wait for completion with timeout
+            boolean finished = process.waitFor(timeoutMs + 1000L, TimeUnit.MILLISECONDS);
+            
+            if (!finished) {
+                logger.warn("System ping timeout for {}", hostname);
+                process.destroyForcibly();
+                return false;
+            }
+
+            int exitCode = process.exitValue();
+            
+            // Read output for debugging
+            if (logger.isTraceEnabled()) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    String output = reader.lines().reduce("", (a, b) -> a + "\n" + b);
+                    logger.trace("Ping output for {}: {}", hostname, output);
+                }
+            }
+
+            // Exit code 0 means success
+            boolean success = (exitCode == 0);
+            logger.trace("System ping {} exit code: {} (success={})", hostname, exitCode, success);
+            return success;
+
+        } catch (IOException e) {
+            logger.error("IO error during system ping for {}: {}", hostname, e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("System ping interrupted for {}: {}", hostname, e.getMessage());
+            return false;
+        } catch (Exception e) {
+            logger.error("Unexpected error during system ping for {}: {}", hostname, e.getMessage());
+            return false;
+        }
+    }
+}
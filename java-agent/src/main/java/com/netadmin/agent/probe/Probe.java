@@ -0,0 +1,18 @@
+package com.netadmin.agent.probe;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Probe SPI.
+ *
+ * Each implementation owns its concurrency and I/O model (shared socket, selector,
+ * HTTP client, virtual threads, ...) so a cheap probe never queues behind an
+ * expensive one. {@link #probe} must not block the caller and must never complete
+ * exceptionally: failures are reported as a {@link ProbeResult}.
+ */
+public interface Probe {
+
+    ProbeType type();
+
+    CompletableFuture<ProbeResult> probe(ProbeRequest request);
+}
@@ -0,0 +1,44 @@
+package com.netadmin.agent.probe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Routes probe requests to the {@link Probe} implementation for their type.
+ * Every {@link Probe} bean is picked up automatically.
+ */
+@Component
+public class ProbeRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProbeRegistry.class);
+
+    private final Map<ProbeType, Probe> probes = new EnumMap<>(ProbeType.class);
+
+    public ProbeRegistry(List<Probe> implementations) {
+        for (Probe probe : implementations) {
+            Probe previous = probes.put(probe.type(), probe);
+            if (previous != null) {
+                throw new IllegalStateException("Duplicate probe for type " + probe.type() + ": "
+                        + previous.getClass().getSimpleName() + ", " + probe.getClass().getSimpleName());
+            }
+        }
+        logger.info("Registered probes: {}", probes.keySet());
+    }
+
+    public CompletableFuture<ProbeResult> probe(ProbeRequest request) {
+        Probe probe = probes.get(request.type());
+        if (probe == null) {
+            return CompletableFuture.completedFuture(ProbeResult.error(request, ProbeResult.UNSUPPORTED));
+        }
+        if (request.hostname() == null || request.hostname().isBlank()) {
+            return CompletableFuture.completedFuture(ProbeResult.error(request, ProbeResult.MISCONFIGURED));
+        }
+        return probe.probe(request);
+    }
+}
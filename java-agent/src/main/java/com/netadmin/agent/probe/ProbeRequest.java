@@ -0,0 +1,23 @@
+package com.netadmin.agent.probe;
+
+import java.time.Duration;
+
+/**
+ * What to probe and how long to wait for it.
+ *
+ * @param type    probe implementation to use
+ * @param hostname IP address or hostname
+ * @param port    TCP/HTTP/DNS port, null for the probe's default
+ * @param path    HTTP path or full URL, DNS query name; null when not applicable
+ * @param timeout deadline for the whole probe
+ */
+public record ProbeRequest(ProbeType type, String hostname, Integer port, String path, Duration timeout) {
+
+    public static ProbeRequest icmp(String hostname, Duration timeout) {
+        return new ProbeRequest(ProbeType.ICMP, hostname, null, null, timeout);
+    }
+
+    public int portOr(int defaultPort) {
+        return port != null && port > 0 ? port : defaultPort;
+    }
+}
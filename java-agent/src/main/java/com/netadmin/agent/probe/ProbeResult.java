@@ -0,0 +1,93 @@
+package com.netadmin.agent.probe;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.net.http.HttpTimeoutException;
+import java.time.Instant;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Result of a single probe.
+ *
+ * @param type      probe that produced the result
+ * @param hostname  probed host
+ * @param status    outcome
+ * @param rttMicros round-trip time in microseconds, -1 when there was no answer
+ * @param errorCode short machine-readable failure reason, null when UP
+ * @param checkedAt when the probe completed
+ */
+public record ProbeResult(ProbeType type, String hostname, ProbeStatus status,
+                          long rttMicros, String errorCode, Instant checkedAt) {
+
+    public static final String TIMEOUT = "TIMEOUT";
+    public static final String REFUSED = "REFUSED";
+    public static final String UNREACHABLE = "UNREACHABLE";
+    public static final String UNKNOWN_HOST = "UNKNOWN_HOST";
+    public static final String IO_ERROR = "IO_ERROR";
+    public static final String UNSUPPORTED = "UNSUPPORTED";
+    public static final String MISCONFIGURED = "MISCONFIGURED";
+
+    public static ProbeResult up(ProbeRequest request, long rttNanos) {
+        return new ProbeResult(request.type(), request.hostname(), ProbeStatus.UP,
+                rttNanos / 1000, null, Instant.now());
+    }
+
+    public static ProbeResult down(ProbeRequest request, long rttNanos, String errorCode) {
+        return new ProbeResult(request.type(), request.hostname(), ProbeStatus.DOWN,
+                rttNanos / 1000, errorCode, Instant.now());
+    }
+
+    public static ProbeResult down(ProbeRequest request, String errorCode) {
+        return new ProbeResult(request.type(), request.hostname(), ProbeStatus.DOWN,
+                -1, errorCode, Instant.now());
+    }
+
+    public static ProbeResult timeout(ProbeRequest request) {
+        return new ProbeResult(request.type(), request.hostname(), ProbeStatus.TIMEOUT,
+                -1, TIMEOUT, Instant.now());
+    }
+
+    public static ProbeResult error(ProbeRequest request, String errorCode) {
+        return new ProbeResult(request.type(), request.hostname(), ProbeStatus.ERROR,
+                -1, errorCode, Instant.now());
+    }
+
+    /**
+     * Map a probe failure to a result: timeouts become TIMEOUT,
+     * network-level rejections become DOWN with a matching error code.
+     */
+    public static ProbeResult fromFailure(ProbeRequest request, Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        if (cause instanceof TimeoutException || cause instanceof HttpTimeoutException
+                || cause instanceof SocketTimeoutException) {
+            return timeout(request);
+        }
+        if (cause instanceof UnknownHostException) {
+            return down(request, UNKNOWN_HOST);
+        }
+        if (cause instanceof ConnectException) {
+            return down(request, REFUSED);
+        }
+        if (cause instanceof NoRouteToHostException) {
+            return down(request, UNREACHABLE);
+        }
+        if (cause instanceof IOException) {
+            return down(request, IO_ERROR);
+        }
+        return error(request, cause.getClass().getSimpleName());
+    }
+
+    public boolean isUp() {
+        return status == ProbeStatus.UP;
+    }
+}
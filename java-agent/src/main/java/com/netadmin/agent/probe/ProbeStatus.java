@@ -0,0 +1,15 @@
+package com.netadmin.agent.probe;
+
+/**
+ * Outcome of a single probe.
+ *
+ * DOWN means the host answered negatively (refused, unreachable, bad HTTP status),
+ * TIMEOUT means no answer before the deadline, ERROR means the probe itself could
+ * not run (misconfigured target, unsupported probe type).
+ */
+public enum ProbeStatus {
+    UP,
+    DOWN,
+    TIMEOUT,
+    ERROR
+}
@@ -0,0 +1,26 @@
+package com.netadmin.agent.probe;
+
+/**
+ * Probe kinds a monitored target can select through {@code monitored_targets.probe_type}.
+ */
+public enum ProbeType {
+    ICMP,
+    TCP,
+    HTTP,
+    DNS;
+
+    /**
+     * Parse a column value, defaulting to ICMP for empty or unknown values
+     * so rows created before the probe columns existed keep their behaviour.
+     */
+    public static ProbeType parse(String value) {
+        if (value == null || value.isBlank()) {
+            return ICMP;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ICMP;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.netadmin.agent.probe;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * TCP connect probe engine built on a single NIO {@link Selector}.
+ *
+ * Callers start a non-blocking connect and get a future back immediately; one
+ * selector thread keeps every connect in flight, completes it with the RTT to
+ * SYN-ACK (i.e. until {@code finishConnect()} succeeds) and enforces each
+ * connect's own deadline. Connections are reset right after the handshake.
+ */
+@Component
+public class TcpConnectEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(TcpConnectEngine.class);
+
+    private final Queue<PendingConnect> registrations = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<PendingConnect> deadlines =
+            new PriorityQueue<>(Comparator.comparingLong(connect -> connect.deadlineNanos));
+
+    private Selector selector;
+    private Thread selectorThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void open() throws IOException {
+        selector = Selector.open();
+        running = true;
+        selectorThread = Thread.ofPlatform().daemon().name("TcpConnectSelector").start(this::selectLoop);
+        logger.info("🔌 TCP connect engine ready");
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("TCP connect engine closed");
+    }
+
+    /**
+     * Start a non-blocking connect and complete with the handshake RTT in nanoseconds.
+     * Completes exceptionally with {@link TimeoutException} when the deadline passes,
+     * or with the underlying {@link IOException} (refused, unreachable, ...).
+     */
+    public CompletableFuture<Long> connect(InetSocketAddress address, Duration timeout) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IOException("TCP connect engine is not running"));
+        }
+        if (address.isUnresolved()) {
+            return CompletableFuture.failedFuture(new IOException("Unresolved address: " + address.getHostString()));
+        }
+
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            // RST instead of FIN on close: we only need the handshake, not TIME_WAIT sockets
+            channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            long startNanos = System.nanoTime();
+            if (channel.connect(address)) {
+                long rtt = System.nanoTime() - startNanos;
+                closeQuietly(channel);
+                return CompletableFuture.completedFuture(rtt);
+            }
+
+            PendingConnect connect = new PendingConnect(channel, startNanos, startNanos + timeout.toNanos());
+            registrations.add(connect);
+            if (!running) {
+                // close() raced us: the selector loop may already have drained registrations
+                // for the last time, so nobody else would complete this connect
+                registrations.remove(connect);
+                connect.fail(new IOException("TCP connect engine is not running"));
+                return connect.future;
+            }
+            selector.wakeup();
+            return connect.future;
+        } catch (IOException e) {
+            closeQuietly(channel);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void selectLoop() {
+        while (running) {
+            try {
+                registerPending();
+                expireDeadlines();
+                selector.select(nextSelectTimeoutMillis());
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    finish((PendingConnect) key.attachment());
+                }
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (Exception e) {
+                logger.error("TCP selector loop error: {}", e.getMessage(), e);
+            }
+        }
+        shutdownPending();
+    }
+
+    private void registerPending() {
+        PendingConnect connect;
+        while ((connect = registrations.poll()) != null) {
+            try {
+                connect.channel.register(selector, SelectionKey.OP_CONNECT, connect);
+                deadlines.add(connect);
+            } catch (IOException e) {
+                connect.fail(e);
+            }
+        }
+    }
+
+    private void finish(PendingConnect connect) {
+        try {
+            if (connect.channel.finishConnect()) {
+                connect.complete(System.nanoTime() - connect.startNanos);
+            }
+        } catch (IOException e) {
+            connect.fail(e);
+        }
+    }
+
+    /**
+     * Completed connects stay in the deadline heap and are dropped lazily here,
+     * which keeps completion O(1) instead of an O(n) heap removal.
+     */
+    private void expireDeadlines() {
+        long now = System.nanoTime();
+        PendingConnect head;
+        while ((head = deadlines.peek()) != null && (head.future.isDone() || head.deadlineNanos <= now)) {
+            deadlines.poll();
+            if (!head.future.isDone()) {
+                head.fail(new TimeoutException("TCP connect timed out"));
+            }
+        }
+    }
+
+    private long nextSelectTimeoutMillis() {
+        PendingConnect head = deadlines.peek();
+        if (head == null) {
+            return 0; // block until wakeup
+        }
+        long remainingNanos = head.deadlineNanos - System.nanoTime();
+        return Math.max(1, (remainingNanos + 999_999) / 1_000_000);
+    }
+
+    private void shutdownPending() {
+        IOException closed = new IOException("TCP connect engine closed");
+        registrations.forEach(connect -> connect.fail(closed));
+        registrations.clear();
+        deadlines.forEach(connect -> connect.fail(closed));
+        deadlines.clear();
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.debug("Selector close failed: {}", e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing useful to do
+        }
+    }
+
+    private static final class PendingConnect {
+        private final SocketChannel channel;
+        private final long startNanos;
+        private final long deadlineNanos;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        private PendingConnect(SocketChannel channel, long startNanos, long deadlineNanos) {
+            this.channel = channel;
+            this.startNanos = startNanos;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        private void complete(long rttNanos) {
+            closeQuietly(channel);
+            future.complete(rttNanos);
+        }
+
+        private void fail(Throwable error) {
+            closeQuietly(channel);
+            future.completeExceptionally(error);
+        }
+    }
+}
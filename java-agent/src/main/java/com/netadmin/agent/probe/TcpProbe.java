@@ -0,0 +1,51 @@
+package com.netadmin.agent.probe;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TCP connect probe: UP when the handshake with host:port completes.
+ * Name resolution runs on virtual threads, the connect itself on the
+ * {@link TcpConnectEngine} selector.
+ */
+@Component
+public class TcpProbe implements Probe {
+
+    private final TcpConnectEngine engine;
+    private final ExecutorService resolver =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tcp-resolve-", 0).factory());
+
+    public TcpProbe(TcpConnectEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public ProbeType type() {
+        return ProbeType.TCP;
+    }
+
+    @Override
+    public CompletableFuture<ProbeResult> probe(ProbeRequest request) {
+        if (request.port() == null || request.port() <= 0) {
+            return CompletableFuture.completedFuture(ProbeResult.error(request, ProbeResult.MISCONFIGURED));
+        }
+
+        return CompletableFuture
+                .supplyAsync(() -> new InetSocketAddress(request.hostname().trim(), request.port()), resolver)
+                .thenCompose(address -> address.isUnresolved()
+                        ? CompletableFuture.completedFuture(ProbeResult.down(request, ProbeResult.UNKNOWN_HOST))
+                        : engine.connect(address, request.timeout())
+                                .thenApply(rttNanos -> ProbeResult.up(request, rttNanos)))
+                .exceptionally(e -> ProbeResult.fromFailure(request, e));
+    }
+
+    @PreDestroy
+    public void close() {
+        resolver.shutdownNow();
+    }
+}
@@ -0,0 +1,150 @@
+package com.netadmin.agent.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agent-level liveness record in {@code agent_heartbeat}.
+ *
+ * With transition-only persistence, monitored_targets.last_check only moves
+ * when a status changes. Instead of touching every row, the agent upserts per
+ * heartbeat one {@code agent_check_watermarks} row per check interval: the
+ * oldest check this agent completed among the targets with that interval
+ * (see {@link TargetStateTable#checkedThrough()}). A checked target's
+ * effective last check is the later of its own row and the watermark of its
+ * interval. {@code agent_heartbeat.checked_through} keeps the overall minimum
+ * for display only; it is null until every target has been checked.
+ */
+@Component
+public class AgentHeartbeat {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentHeartbeat.class);
+
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS agent_heartbeat (
+                agent_id VARCHAR(64) PRIMARY KEY,
+                last_seen TIMESTAMP WITH TIME ZONE NOT NULL,
+                checked_through TIMESTAMP WITH TIME ZONE,
+                active_targets INT DEFAULT 0
+            )
+            """;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO agent_heartbeat (agent_id, last_seen, checked_through, active_targets)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (agent_id) DO UPDATE
+            SET last_seen = EXCLUDED.last_seen,
+                checked_through = EXCLUDED.checked_through,
+                active_targets = EXCLUDED.active_targets
+            """;
+
+    private static final String CREATE_WATERMARKS_SQL = """
+            CREATE TABLE IF NOT EXISTS agent_check_watermarks (
+                agent_id VARCHAR(64) NOT NULL,
+                interval_seconds INT NOT NULL,
+                checked_through TIMESTAMP WITH TIME ZONE,
+                targets INT DEFAULT 0,
+                updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+                PRIMARY KEY (agent_id, interval_seconds)
+            )
+            """;
+
+    private static final String UPSERT_WATERMARK_SQL = """
+            INSERT INTO agent_check_watermarks (agent_id, interval_seconds, checked_through, targets, updated_at)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (agent_id, interval_seconds) DO UPDATE
+            SET checked_through = EXCLUDED.checked_through,
+                targets = EXCLUDED.targets,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    // Intervals no longer scheduled were not touched by this beat
+    private static final String DELETE_STALE_WATERMARKS_SQL =
+            "DELETE FROM agent_check_watermarks WHERE agent_id = ? AND updated_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TargetStateTable stateTable;
+    private final String agentId;
+    private final Duration interval;
+    private final ScheduledExecutorService heartbeatExecutor;
+
+    public AgentHeartbeat(
+            JdbcTemplate jdbcTemplate,
+            TargetStateTable stateTable,
+            @Value("${app.agent.id:netadmin-agent}") String agentId,
+            @Value("${app.monitoring.heartbeat.interval-ms:15000}") long intervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stateTable = stateTable;
+        this.agentId = agentId;
+        this.interval = Duration.ofMillis(Math.max(1000, intervalMs));
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("AgentHeartbeat").factory());
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            jdbcTemplate.execute(CREATE_TABLE_SQL);
+            jdbcTemplate.execute(CREATE_WATERMARKS_SQL);
+        } catch (Exception e) {
+            logger.error("Failed to create agent heartbeat tables: {}", e.getMessage());
+        }
+        long intervalMs = interval.toMillis();
+        heartbeatExecutor.scheduleWithFixedDelay(this::beat, 0, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("💓 Agent heartbeat '{}' every {}ms", agentId, intervalMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+    }
+
+    private void beat() {
+        try {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            Map<Integer, TargetStateTable.Watermark> watermarks = stateTable.checkedThrough();
+
+            List<Object[]> rows = new ArrayList<>(watermarks.size());
+            LocalDateTime overall = null;
+            boolean allChecked = true;
+            for (Map.Entry<Integer, TargetStateTable.Watermark> entry : watermarks.entrySet()) {
+                LocalDateTime checkedThrough = entry.getValue().checkedThrough();
+                rows.add(new Object[]{agentId, entry.getKey(),
+                        checkedThrough != null ? Timestamp.valueOf(checkedThrough) : null,
+                        entry.getValue().targets(), now});
+                if (checkedThrough == null) {
+                    allChecked = false;
+                } else if (overall == null || checkedThrough.isBefore(overall)) {
+                    overall = checkedThrough;
+                }
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_WATERMARK_SQL, rows);
+            }
+            jdbcTemplate.update(DELETE_STALE_WATERMARKS_SQL, agentId, now);
+
+            jdbcTemplate.update(UPSERT_SQL,
+                    agentId,
+                    now,
+                    allChecked && overall != null ? Timestamp.valueOf(overall) : null,
+                    stateTable.size());
+        } catch (Exception e) {
+            logger.warn("Heartbeat write failed: {}", e.getMessage());
+        }
+    }
+}
@@ -1,33 +1,341 @@
 package com.netadmin.agent.service;
 
-import com.netadmin.agent.repository.TelegramTopicRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes alerts for the Telegram bot through {@link AlertPublisher}.
+ *
+ * Alerts are coalesced per topic: the first alert opens a window of at most
+ * {@code max-delay-ms}, alerts arriving meanwhile join it, and when the window
+ * closes (or {@code max-batch} alerts are waiting) a single message goes out.
+ * A window holding one alert sends it unchanged; larger ones become a digest
+ * listing the affected hosts, so a dead core switch produces one message
+ * instead of hundreds.
+ *
+ * Telegram throttles bursts to a supergroup, so the agent paces itself rather
+ * than leaning on the bot's retries: every message released costs a token
+ * from a per-topic and from the global {@link TokenBucket}. Each topic has two
+ * priority lanes, urgent (DOWN / ERROR and free-form alerts) and routine
+ * (recoveries); urgent messages go first, and routine ones wait while any
+ * topic still has urgent alerts queued. When the budget is exhausted a lane
+ * is deferred until a token is due, and alerts arriving meanwhile merge into
+ * its digest, so throttling reduces the number of messages, not the alerts.
+ *
+ * Target alerts are routed by {@link AlertRouting}; alerts for a topic the
+ * bot does not know are rejected here rather than published.
+ */
 @Service
 public class AlertDispatcher {
 
     private static final Logger logger = LoggerFactory.getLogger(AlertDispatcher.class);
-    private final StringRedisTemplate redisTemplate;
-    private final TelegramTopicRepository topicRepository;
+    // Telegram rejects messages over 4096 characters
+    private static final int MAX_DIGEST_CHARS = 3800;
+    private static final long MIN_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final AlertPublisher publisher;
+    private final AlertRouting routing;
+    private final Duration maxDelay;
+    private final int maxBatch;
+    private final int topicBurst;
+    private final double topicPerMinute;
+    private final int maxDeferred;
+    private final ScheduledExecutorService coalescer;
+    private final Counter rejected;
+    private final Counter deferred;
+    private final Counter dropped;
+
+    // Guarded by pending
+    private final Map<String, TopicLanes> pending = new HashMap<>();
+    private final TokenBucket globalBucket;
+
+    public AlertDispatcher(
+            AlertPublisher publisher,
+            AlertRouting routing,
+            MeterRegistry meterRegistry,
+            @Value("${app.alerts.coalesce.max-delay-ms:3000}") long maxDelayMs,
+            @Value("${app.alerts.coalesce.max-batch:50}") int maxBatch,
+            @Value("${app.alerts.rate.global-per-minute:20}") double globalPerMinute,
+            @Value("${app.alerts.rate.global-burst:20}") int globalBurst,
+            @Value("${app.alerts.rate.topic-per-minute:10}") double topicPerMinute,
+            @Value("${app.alerts.rate.topic-burst:5}") int topicBurst,
+            @Value("${app.alerts.rate.max-deferred:1000}") int maxDeferred) {
+        this.publisher = publisher;
+        this.routing = routing;
+        this.maxDelay = Duration.ofMillis(Math.max(0, maxDelayMs));
+        this.maxBatch = Math.max(1, maxBatch);
+        this.topicBurst = topicBurst;
+        this.topicPerMinute = topicPerMinute;
+        this.maxDeferred = Math.max(1, maxDeferred);
+        this.globalBucket = new TokenBucket(globalBurst, globalPerMinute, System.nanoTime());
+        this.coalescer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("AlertDispatcher-coalescer").factory());
+        this.rejected = Counter.builder("netadmin.alerts.rejected")
+                .description("Alerts rejected because their topic does not exist")
+                .register(meterRegistry);
+        this.deferred = Counter.builder("netadmin.alerts.deferred")
+                .description("Alert releases postponed because the rate budget was exhausted")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("netadmin.alerts.dropped")
+                .description("Alerts dropped because too many were deferred for one topic")
+                .register(meterRegistry);
+        Gauge.builder("netadmin.alerts.pending", this, AlertDispatcher::pendingCount)
+                .description("Alerts waiting in coalescing windows or deferred by rate limits")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Waiting alerts of one topic, split by priority, plus the topic's token
+     * bucket (kept across windows so the rate holds over time).
+     */
+    private final class TopicLanes {
+        private final TokenBucket bucket;
+        private final List<AlertTransport.OutboundAlert> urgent = new ArrayList<>();
+        private final List<AlertTransport.OutboundAlert> routine = new ArrayList<>();
+        private long urgentSince;
+        private long routineSince;
+        private boolean throttled;
+        private ScheduledFuture<?> flushTask;
+
+        private TopicLanes(long nowNanos) {
+            this.bucket = new TokenBucket(topicBurst, topicPerMinute, nowNanos);
+        }
+
+        private void add(AlertTransport.OutboundAlert alert, long nowNanos) {
+            List<AlertTransport.OutboundAlert> lane = isUrgent(alert) ? urgent : routine;
+            if (lane.isEmpty()) {
+                if (lane == urgent) {
+                    urgentSince = nowNanos;
+                } else {
+                    routineSince = nowNanos;
+                }
+            }
+            lane.add(alert);
+            if (size() > maxDeferred) {
+                // Shed the least important, oldest alert
+                (routine.isEmpty() ? urgent : routine).remove(0);
+                dropped.increment();
+            }
+        }
+
+        private int size() {
+            return urgent.size() + routine.size();
+        }
+    }
 
-    public AlertDispatcher(StringRedisTemplate redisTemplate, TelegramTopicRepository topicRepository) {
-        this.redisTemplate = redisTemplate;
-        this.topicRepository = topicRepository;
+    @PreDestroy
+    public void shutdown() {
+        coalescer.shutdownNow();
+        List<AlertTransport.OutboundAlert> remaining = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (pending) {
+            // Rate limits no longer matter once the agent is going away
+            pending.forEach((topicName, lanes) -> {
+                if (!lanes.urgent.isEmpty()) {
+                    remaining.add(coalesce(topicName, lanes.urgent, now - lanes.urgentSince));
+                }
+                if (!lanes.routine.isEmpty()) {
+                    remaining.add(coalesce(topicName, lanes.routine, now - lanes.routineSince));
+                }
+            });
+            pending.clear();
+        }
+        publisher.submit(remaining);
     }
 
     public void sendAlert(String topicName, String message) {
-        // We verify topic exists, but we push the NAME to Redis.
-        // Python bot resolves the actual Thread ID to allow hot-swapping topics.
+        enqueue(AlertTransport.OutboundAlert.of(topicName, message));
+    }
+
+    /**
+     * Send an alert about a target to the topic the routing table assigns it,
+     * together with the structured transition behind it.
+     */
+    public void sendTargetAlert(String message, AlertEvent event) {
+        String topicName = routing.topicFor(event.targetId());
+        enqueue(AlertTransport.OutboundAlert.of(topicName, message, List.of(event)));
+    }
+
+    private void enqueue(AlertTransport.OutboundAlert alert) {
+        String topicName = alert.topic();
+        if (!routing.isKnown(topicName)) {
+            rejected.increment();
+            logger.error("❌ Rejected alert for unknown topic [{}]: {}", topicName, alert.message());
+            return;
+        }
+
+        boolean full;
+        synchronized (pending) {
+            long now = System.nanoTime();
+            TopicLanes lanes = pending.computeIfAbsent(topicName, t -> new TopicLanes(now));
+            lanes.add(alert, now);
+            if (lanes.flushTask == null) {
+                scheduleFlush(topicName, lanes, maxDelay.toNanos());
+            }
+            // A throttled lane cannot be released early anyway
+            full = !lanes.throttled && (lanes.urgent.size() == maxBatch || lanes.routine.size() == maxBatch);
+        }
+        if (full) {
+            try {
+                coalescer.execute(() -> flush(topicName));
+            } catch (RuntimeException e) {
+                // Shutting down: shutdown() flushes what is left
+                logger.debug("Alert coalescer not accepting tasks: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * (Re)arm the topic's single pending flush. Caller holds the pending lock.
+     */
+    private void scheduleFlush(String topicName, TopicLanes lanes, long delayNanos) {
+        if (lanes.flushTask != null) {
+            lanes.flushTask.cancel(false);
+            lanes.flushTask = null;
+        }
         try {
-            String payload = topicName + "|" + message;
-            redisTemplate.convertAndSend("bot_alerts", payload);
-            logger.info("Dispatched alert to [{}]: {}", topicName, message);
-        } catch (Exception e) {
-            logger.error("Failed to dispatch alert", e);
+            lanes.flushTask = coalescer.schedule(() -> flush(topicName), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            // Shutting down: shutdown() flushes what is left
+            logger.debug("Alert coalescer not accepting tasks: {}", e.getMessage());
         }
     }
-}
 
+    /**
+     * Release what the rate budget allows for the topic, urgent lane first,
+     * and reschedule for when a token is due if anything is left. A stale
+     * scheduled flush (its window was already sent because it filled up)
+     * either finds nothing or closes the next window early, never late.
+     */
+    private void flush(String topicName) {
+        List<AlertTransport.OutboundAlert> release = new ArrayList<>(2);
+        synchronized (pending) {
+            TopicLanes lanes = pending.get(topicName);
+            if (lanes == null || lanes.size() == 0) {
+                return;
+            }
+            long now = System.nanoTime();
+
+            if (!lanes.urgent.isEmpty() && takeTokens(lanes, now)) {
+                release.add(coalesce(topicName, lanes.urgent, now - lanes.urgentSince));
+                lanes.urgent.clear();
+            }
+            if (!lanes.routine.isEmpty() && lanes.urgent.isEmpty() && !urgentWaiting()
+                    && takeTokens(lanes, now)) {
+                release.add(coalesce(topicName, lanes.routine, now - lanes.routineSince));
+                lanes.routine.clear();
+            }
+
+            lanes.throttled = lanes.size() > 0;
+            if (lanes.throttled) {
+                deferred.increment();
+                long wait = Math.max(globalBucket.nanosUntilToken(now), lanes.bucket.nanosUntilToken(now));
+                scheduleFlush(topicName, lanes, Math.max(wait, MIN_RETRY_NANOS));
+            } else if (lanes.flushTask != null) {
+                lanes.flushTask.cancel(false);
+                lanes.flushTask = null;
+            }
+        }
+        publisher.submit(release);
+    }
+
+    /**
+     * One message costs a token from both the topic and the global bucket.
+     */
+    private boolean takeTokens(TopicLanes lanes, long nowNanos) {
+        if (!globalBucket.hasToken(nowNanos) || !lanes.bucket.hasToken(nowNanos)) {
+            return false;
+        }
+        globalBucket.take();
+        lanes.bucket.take();
+        return true;
+    }
+
+    private boolean urgentWaiting() {
+        for (TopicLanes lanes : pending.values()) {
+            if (!lanes.urgent.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int pendingCount() {
+        synchronized (pending) {
+            int count = 0;
+            for (TopicLanes lanes : pending.values()) {
+                count += lanes.size();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Urgent: anything but a pure recovery (free-form alerts count as urgent).
+     */
+    private static boolean isUrgent(AlertTransport.OutboundAlert alert) {
+        if (alert.events().isEmpty()) {
+            return true;
+        }
+        for (AlertEvent event : alert.events()) {
+            if (event.severity() != AlertEvent.Severity.INFO) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private AlertTransport.OutboundAlert coalesce(String topicName, List<AlertTransport.OutboundAlert> batch,
+                                                  long waitedNanos) {
+        if (batch.size() == 1) {
+            return batch.get(0);
+        }
+        logger.info("Coalesced {} alerts for [{}] into one digest", batch.size(), topicName);
+        List<AlertEvent> events = new ArrayList<>();
+        for (AlertTransport.OutboundAlert alert : batch) {
+            events.addAll(alert.events());
+        }
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitedNanos));
+        return AlertTransport.OutboundAlert.of(topicName, digest(batch, seconds), List.copyOf(events));
+    }
+
+    /**
+     * One line per alert (its headline, e.g. "🚨 ALERT: Host X (10.0.0.1) is DOWN!"),
+     * truncated to fit a single Telegram message.
+     */
+    private static String digest(List<AlertTransport.OutboundAlert> batch, long seconds) {
+        StringBuilder digest = new StringBuilder(String.format("📋 %d alerts in the last %ds:%n",
+                batch.size(), seconds));
+        int shown = 0;
+        for (AlertTransport.OutboundAlert alert : batch) {
+            String message = alert.message();
+            int newline = message.indexOf('\n');
+            String headline = newline >= 0 ? message.substring(0, newline) : message;
+            if (digest.length() + headline.length() + 3 > MAX_DIGEST_CHARS) {
+                break;
+            }
+            digest.append("• ").append(headline).append('\n');
+            shown++;
+        }
+        if (shown < batch.size()) {
+            digest.append(String.format("…and %d more", batch.size() - shown));
+        }
+        return digest.toString().stripTrailing();
+    }
+}
@@ -0,0 +1,31 @@
+package com.netadmin.agent.service;
+
+import java.time.Instant;
+
+/**
+ * Structured description of one monitoring alert, carried next to the
+ * rendered text so consumers can group, dedup and filter without parsing it.
+ *
+ * @param targetId       monitored target
+ * @param targetName     display name of the target
+ * @param hostname       probed host
+ * @param previousStatus status before the transition (UP / DOWN / ERROR / UNKNOWN)
+ * @param status         status after the transition
+ * @param severity       how urgent the alert is
+ * @param occurredAt     when the transition was observed
+ * @param since          last check before the transition, null if unknown
+ * @param rttMicros      round-trip time of the check, -1 when there was no answer
+ * @param probe          probe type that observed it, null if the check itself failed
+ * @param detail         error code or message, null when there is none
+ */
+public record AlertEvent(long targetId, String targetName, String hostname,
+                         String previousStatus, String status, Severity severity,
+                         Instant occurredAt, Instant since, long rttMicros,
+                         String probe, String detail) {
+
+    public enum Severity {
+        INFO,
+        WARNING,
+        CRITICAL
+    }
+}
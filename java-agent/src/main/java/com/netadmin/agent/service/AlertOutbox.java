@@ -0,0 +1,280 @@
+package com.netadmin.agent.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Disk-backed outbox for alerts that could not be handed to Redis.
+ *
+ * Every held alert is one file named after its outbox seq, written to a temp
+ * file and renamed into place so a crash never leaves half an alert behind.
+ * Held alerts survive agent restarts and are drained oldest first, in batches
+ * through {@link AlertTransport}, once Redis answers again. While anything is
+ * held, new alerts queue up behind it so delivery order is preserved.
+ *
+ * The outbox is bounded by {@code max-entries}; when full the oldest alert is
+ * dropped. Each alert carries a dedup id that travels with it to the bot, so
+ * a batch that reached Redis but failed to report back can be resent without
+ * double-posting.
+ *
+ * File layout: id, topic and creation time (epoch millis) on the first three
+ * lines, then the alert encoded by {@link AlertPayloadCodec}. Files holding
+ * plain message text there instead are still read (as alerts without events).
+ */
+@Component
+public class AlertOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertOutbox.class);
+    private static final String SUFFIX = ".alert";
+
+    private final AlertTransport transport;
+    private final AlertPayloadCodec codec;
+    private final Path directory;
+    private final int maxEntries;
+    private final int batchSize;
+    private final Duration retryInterval;
+    private final ScheduledExecutorService drainer;
+    private final Counter delivered;
+    private final Counter dropped;
+
+    // Guarded by this
+    private final TreeMap<Long, Held> held = new TreeMap<>();
+    private final Set<String> heldIds = new HashSet<>();
+    private long nextSeq;
+
+    private record Held(String id, long createdMillis) {
+    }
+
+    public AlertOutbox(
+            AlertTransport transport,
+            AlertPayloadCodec codec,
+            MeterRegistry meterRegistry,
+            @Value("${app.alerts.outbox.dir:/app/data/outbox}") String directory,
+            @Value("${app.alerts.outbox.max-entries:10000}") int maxEntries,
+            @Value("${app.alerts.outbox.batch-size:100}") int batchSize,
+            @Value("${app.alerts.outbox.retry-interval-ms:5000}") long retryIntervalMs) {
+        this.transport = transport;
+        this.codec = codec;
+        this.directory = Path.of(directory);
+        this.maxEntries = Math.max(1, maxEntries);
+        this.batchSize = Math.max(1, batchSize);
+        this.retryInterval = Duration.ofMillis(Math.max(100, retryIntervalMs));
+        this.drainer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("AlertOutbox").factory());
+        this.delivered = Counter.builder("netadmin.alerts.outbox.delivered")
+                .description("Held alerts delivered after Redis came back")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("netadmin.alerts.outbox.dropped")
+                .description("Alerts dropped because the outbox was full or could not be written")
+                .register(meterRegistry);
+        Gauge.builder("netadmin.alerts.outbox.depth", this, AlertOutbox::depth)
+                .description("Alerts held in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("netadmin.alerts.outbox.age", this, AlertOutbox::oldestAgeSeconds)
+                .description("Age in seconds of the oldest held alert")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    long seq = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+                    Held entry = new Held(lines.get(0), Long.parseLong(lines.get(2)));
+                    held.put(seq, entry);
+                    heldIds.add(entry.id());
+                    nextSeq = Math.max(nextSeq, seq + 1);
+                } catch (RuntimeException e) {
+                    logger.warn("Discarding unreadable outbox file {}: {}", name, e.getMessage());
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        if (!held.isEmpty()) {
+            logger.warn("📬 Alert outbox holds {} undelivered alerts from a previous run", held.size());
+        }
+        long intervalMs = retryInterval.toMillis();
+        drainer.scheduleWithFixedDelay(this::drain, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Whatever is still held stays on disk for the next start
+        drainer.shutdownNow();
+    }
+
+    public synchronized boolean isEmpty() {
+        return held.isEmpty();
+    }
+
+    public synchronized int depth() {
+        return held.size();
+    }
+
+    /**
+     * Hold alerts until Redis is back. Alerts already held (same id) are skipped.
+     */
+    public void store(List<AlertTransport.OutboundAlert> alerts) {
+        for (AlertTransport.OutboundAlert alert : alerts) {
+            store(alert);
+        }
+    }
+
+    private synchronized void store(AlertTransport.OutboundAlert alert) {
+        if (heldIds.contains(alert.id())) {
+            return;
+        }
+        while (held.size() >= maxEntries) {
+            Map.Entry<Long, Held> oldest = held.pollFirstEntry();
+            heldIds.remove(oldest.getValue().id());
+            deleteQuietly(oldest.getKey());
+            dropped.increment();
+            logger.warn("Alert outbox full ({}), dropped oldest alert {}", maxEntries, oldest.getValue().id());
+        }
+
+        long seq = nextSeq++;
+        long now = System.currentTimeMillis();
+        String payload = new String(codec.encode(alert), StandardCharsets.UTF_8);
+        String content = alert.id() + "\n" + alert.topic() + "\n" + now + "\n" + payload;
+        Path file = fileFor(seq);
+        Path temp = directory.resolve(seq + ".tmp");
+        try {
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dropped.increment();
+            logger.error("❌ Failed to write alert to outbox, alert lost: {}", e.getMessage());
+            return;
+        }
+        held.put(seq, new Held(alert.id(), now));
+        heldIds.add(alert.id());
+    }
+
+    /**
+     * Deliver held alerts oldest first, one batch per round trip, until the
+     * outbox is empty or a send fails.
+     */
+    void drain() {
+        while (true) {
+            // Only the seqs are taken under the lock; the files are read outside it
+            // so store() and the gauges never wait on disk for a whole batch
+            List<Long> candidates;
+            synchronized (this) {
+                candidates = held.keySet().stream().limit(batchSize).toList();
+            }
+            if (candidates.isEmpty()) {
+                return;
+            }
+            List<Long> seqs = new ArrayList<>();
+            List<AlertTransport.OutboundAlert> batch = new ArrayList<>();
+            for (Long seq : candidates) {
+                AlertTransport.OutboundAlert alert = read(seq);
+                if (alert != null) {
+                    seqs.add(seq);
+                    batch.add(alert);
+                }
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            try {
+                transport.send(batch);
+            } catch (Exception e) {
+                logger.debug("Alert outbox drain deferred, Redis still unavailable: {}", e.getMessage());
+                return;
+            }
+
+            synchronized (this) {
+                for (Long seq : seqs) {
+                    Held entry = held.remove(seq);
+                    if (entry != null) {
+                        heldIds.remove(entry.id());
+                        deleteQuietly(seq);
+                    }
+                }
+            }
+            delivered.increment(batch.size());
+            logger.info("📬 Delivered {} held alerts from outbox ({} left)", batch.size(), depth());
+        }
+    }
+
+    /**
+     * Read a held alert back; an unreadable file is dropped. Called without the
+     * lock, so the entry may have been evicted meanwhile.
+     */
+    private AlertTransport.OutboundAlert read(Long seq) {
+        try {
+            String content = Files.readString(fileFor(seq), StandardCharsets.UTF_8);
+            String[] parts = content.split("\n", 4);
+            String body = parts.length > 3 ? parts[3] : "";
+            if (AlertPayloadCodec.isPayload(body)) {
+                return codec.decode(body);
+            }
+            return new AlertTransport.OutboundAlert(parts[0], parts[1], body, List.of());
+        } catch (IOException | RuntimeException e) {
+            dropUnreadable(seq, e);
+            return null;
+        }
+    }
+
+    private synchronized void dropUnreadable(Long seq, Exception e) {
+        Held entry = held.remove(seq);
+        if (entry == null) {
+            // Evicted by store() while we were reading: already counted
+            return;
+        }
+        logger.warn("Dropping unreadable outbox entry {}: {}", seq, e.getMessage());
+        heldIds.remove(entry.id());
+        deleteQuietly(seq);
+        dropped.increment();
+    }
+
+    private synchronized double oldestAgeSeconds() {
+        if (held.isEmpty()) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - held.firstEntry().getValue().createdMillis()) / 1000.0;
+    }
+
+    private Path fileFor(long seq) {
+        return directory.resolve(String.format("%016d%s", seq, SUFFIX));
+    }
+
+    private void deleteQuietly(long seq) {
+        try {
+            Files.deleteIfExists(fileFor(seq));
+        } catch (IOException e) {
+            logger.warn("Failed to delete outbox entry {}: {}", seq, e.getMessage());
+        }
+    }
+}
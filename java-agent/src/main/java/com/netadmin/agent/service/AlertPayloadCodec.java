@@ -0,0 +1,135 @@
+package com.netadmin.agent.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versioned JSON wire format of an alert.
+ *
+ * <pre>
+ * {"v":1,"id":"…","topic":"monitoring","text":"🚨 ALERT: …",
+ *  "events":[{"target_id":42,"target":"core-sw","host":"10.0.0.1",
+ *             "from":"UP","to":"DOWN","severity":"CRITICAL",
+ *             "ts":"2026-10-15T08:00:00Z","since":"2026-10-15T07:59:30Z",
+ *             "rtt_us":-1,"probe":"ICMP","detail":"TIMEOUT"}]}
+ * </pre>
+ *
+ * {@code text} is the rendered message, {@code events} the structured
+ * transitions behind it (several for a digest, none for free-form alerts).
+ * Readers must reject a {@code v} they do not know; new optional fields may
+ * be added without bumping it.
+ *
+ * Encoding streams straight into a per-thread reused buffer through the
+ * Jackson generator: no tree, no intermediate strings.
+ */
+@Component
+public class AlertPayloadCodec {
+
+    static final int VERSION = 1;
+
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+    private final ThreadLocal<ByteArrayOutputStream> buffers =
+            ThreadLocal.withInitial(() -> new ByteArrayOutputStream(1024));
+
+    public AlertPayloadCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Encode as UTF-8 JSON.
+     */
+    public byte[] encode(AlertTransport.OutboundAlert alert) {
+        ByteArrayOutputStream buffer = buffers.get();
+        buffer.reset();
+        try (JsonGenerator json = jsonFactory.createGenerator(buffer)) {
+            json.writeStartObject();
+            json.writeNumberField("v", VERSION);
+            json.writeStringField("id", alert.id());
+            json.writeStringField("topic", alert.topic());
+            json.writeStringField("text", alert.message());
+            json.writeArrayFieldStart("events");
+            for (AlertEvent event : alert.events()) {
+                writeEvent(json, event);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static void writeEvent(JsonGenerator json, AlertEvent event) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("target_id", event.targetId());
+        json.writeStringField("target", event.targetName());
+        json.writeStringField("host", event.hostname());
+        json.writeStringField("from", event.previousStatus());
+        json.writeStringField("to", event.status());
+        json.writeStringField("severity", event.severity().name());
+        json.writeStringField("ts", event.occurredAt().toString());
+        json.writeStringField("since", event.since() != null ? event.since().toString() : null);
+        json.writeNumberField("rtt_us", event.rttMicros());
+        json.writeStringField("probe", event.probe());
+        json.writeStringField("detail", event.detail());
+        json.writeEndObject();
+    }
+
+    /**
+     * Decode a payload written by {@link #encode}.
+     *
+     * @throws IllegalArgumentException if it is not a payload of a known version
+     */
+    public AlertTransport.OutboundAlert decode(String payload) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(payload);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed alert payload: " + e.getMessage(), e);
+        }
+        int version = root.path("v").asInt(-1);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported alert payload version " + version);
+        }
+
+        List<AlertEvent> events = new ArrayList<>();
+        for (JsonNode event : root.path("events")) {
+            events.add(new AlertEvent(
+                    event.path("target_id").asLong(),
+                    event.path("target").asText(null),
+                    event.path("host").asText(null),
+                    event.path("from").asText(null),
+                    event.path("to").asText(null),
+                    AlertEvent.Severity.valueOf(event.path("severity").asText(AlertEvent.Severity.INFO.name())),
+                    Instant.parse(event.path("ts").asText()),
+                    event.hasNonNull("since") ? Instant.parse(event.get("since").asText()) : null,
+                    event.path("rtt_us").asLong(-1),
+                    event.path("probe").asText(null),
+                    event.path("detail").asText(null)));
+        }
+        return new AlertTransport.OutboundAlert(
+                root.path("id").asText(),
+                root.path("topic").asText(),
+                root.path("text").asText(),
+                List.copyOf(events));
+    }
+
+    /**
+     * Whether a stored string looks like an encoded payload rather than legacy text.
+     */
+    static boolean isPayload(String content) {
+        return content.startsWith("{\"v\":");
+    }
+}
@@ -0,0 +1,229 @@
+package com.netadmin.agent.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands alerts to Redis off the caller's thread.
+ *
+ * Callers (check threads, the coalescer) only append to a bounded lock-free
+ * queue and return; one publisher thread drains it and sends everything
+ * waiting in a single pipelined round trip through {@link AlertTransport}, so
+ * a slow Redis delays alerts but never stalls monitoring.
+ *
+ * What happens when the queue is full is explicit ({@code overflow}):
+ * - SPILL (default): everything queued, then the alert, moves to the
+ *   {@link AlertOutbox} on disk, so the outbox stays in arrival order
+ * - DROP_OLDEST: the oldest queued alert is discarded to make room
+ * - BLOCK: the caller waits for room (stalls the caller, use with care)
+ *
+ * Batches Redis does not accept are held in the outbox; while the outbox is
+ * not empty new batches queue behind it to keep delivery order.
+ */
+@Component
+public class AlertPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertPublisher.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    enum OverflowPolicy {
+        SPILL,
+        DROP_OLDEST,
+        BLOCK
+    }
+
+    private final AlertTransport transport;
+    private final AlertOutbox outbox;
+    private final int capacity;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final Queue<AlertTransport.OutboundAlert> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Thread publisher;
+    private final Counter overflowed;
+    // Spilling and taking a batch off the queue are atomic with respect to each
+    // other, so a batch is never sent directly past older alerts being spilled
+    private final Object spillLock = new Object();
+    private volatile boolean running = true;
+
+    public AlertPublisher(
+            AlertTransport transport,
+            AlertOutbox outbox,
+            MeterRegistry meterRegistry,
+            @Value("${app.alerts.queue.capacity:10000}") int capacity,
+            @Value("${app.alerts.queue.batch-size:200}") int batchSize,
+            @Value("${app.alerts.queue.overflow:spill}") String overflowPolicy) {
+        this.transport = transport;
+        this.outbox = outbox;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.overflowPolicy = OverflowPolicy.valueOf(
+                overflowPolicy.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        this.publisher = Thread.ofPlatform().daemon().name("AlertPublisher").unstarted(this::run);
+        this.overflowed = Counter.builder("netadmin.alerts.queue.overflow")
+                .description("Alerts that found the publish queue full")
+                .tag("policy", this.overflowPolicy.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+        Gauge.builder("netadmin.alerts.queue.depth", queued, AtomicInteger::get)
+                .description("Alerts waiting for the publisher thread")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        publisher.start();
+        logger.info("📤 Alert publisher started (queue {}, overflow {})", capacity, overflowPolicy);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(publisher);
+        try {
+            publisher.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything the publisher did not get to is sent (or held) from here
+        publishQueued();
+    }
+
+    /**
+     * Queue alerts for delivery. Never blocks unless the policy is BLOCK.
+     */
+    public void submit(List<AlertTransport.OutboundAlert> alerts) {
+        for (AlertTransport.OutboundAlert alert : alerts) {
+            offer(alert);
+        }
+        LockSupport.unpark(publisher);
+    }
+
+    private void offer(AlertTransport.OutboundAlert alert) {
+        while (true) {
+            int size = queued.get();
+            if (size < capacity) {
+                if (queued.compareAndSet(size, size + 1)) {
+                    queue.add(alert);
+                    return;
+                }
+                continue;
+            }
+
+            switch (overflowPolicy) {
+                case SPILL -> {
+                    overflowed.increment();
+                    spill(alert);
+                    return;
+                }
+                case DROP_OLDEST -> {
+                    AlertTransport.OutboundAlert oldest = queue.poll();
+                    if (oldest != null) {
+                        queued.decrementAndGet();
+                        overflowed.increment();
+                        logger.warn("Alert queue full, dropped oldest alert for [{}]", oldest.topic());
+                    }
+                }
+                case BLOCK -> {
+                    if (!running) {
+                        spill(alert);
+                        return;
+                    }
+                    LockSupport.unpark(publisher);
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Move the whole queue, then the new alert, to the outbox. Older alerts
+     * are held first so the publisher (which queues behind a non-empty
+     * outbox) cannot deliver the new alert ahead of them.
+     */
+    private void spill(AlertTransport.OutboundAlert alert) {
+        int count;
+        synchronized (spillLock) {
+            List<AlertTransport.OutboundAlert> spilled = new ArrayList<>();
+            AlertTransport.OutboundAlert queuedAlert;
+            while ((queuedAlert = queue.poll()) != null) {
+                queued.decrementAndGet();
+                spilled.add(queuedAlert);
+            }
+            spilled.add(alert);
+            outbox.store(spilled);
+            count = spilled.size();
+        }
+        logger.warn("Alert queue full ({}), spilled {} alerts to the outbox", capacity, count);
+    }
+
+    private void run() {
+        while (running) {
+            if (!publishQueued()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Send everything queued, one pipelined batch at a time.
+     *
+     * @return false if the queue was empty
+     */
+    private boolean publishQueued() {
+        boolean any = false;
+        List<AlertTransport.OutboundAlert> batch = new ArrayList<>(Math.min(batchSize, 64));
+        while (true) {
+            boolean direct;
+            synchronized (spillLock) {
+                AlertTransport.OutboundAlert alert;
+                while (batch.size() < batchSize && (alert = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    batch.add(alert);
+                }
+                // Alerts already waiting in the outbox go first
+                direct = outbox.isEmpty();
+            }
+            if (batch.isEmpty()) {
+                return any;
+            }
+            if (direct) {
+                publish(batch);
+            } else {
+                outbox.store(batch);
+            }
+            batch.clear();
+            any = true;
+        }
+    }
+
+    private void publish(List<AlertTransport.OutboundAlert> alerts) {
+        // We verify topic exists, but we push the NAME to Redis.
+        // Python bot resolves the actual Thread ID to allow hot-swapping topics.
+        try {
+            transport.send(alerts);
+            for (AlertTransport.OutboundAlert alert : alerts) {
+                logger.info("Dispatched alert to [{}]: {}", alert.topic(), alert.message());
+            }
+        } catch (Exception e) {
+            logger.error("❌ Failed to dispatch {} alert(s), holding them in the outbox: {}",
+                    alerts.size(), e.getMessage());
+            outbox.store(alerts);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.netadmin.agent.service;
+
+import com.netadmin.agent.model.TelegramTopic;
+import com.netadmin.agent.repository.TelegramTopicRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory alert routing table: which Telegram topic each target alerts to.
+ *
+ * Built from {@code telegram_topics} (the topics that exist) and the optional
+ * {@code alert_topic} of {@code monitored_targets} and the admin panel's
+ * {@code monitoring_groups}; a target's own topic wins over its group's, and
+ * targets with neither use {@code default-topic}. Alerts never query the
+ * database: the table is rebuilt when an {@code ALERT_ROUTING} or
+ * {@code MONITORING} event arrives on {@code netadmin_events}, with a slow
+ * periodic reload as a safety net for a missed event.
+ *
+ * The table is an immutable snapshot swapped atomically, so lookups are
+ * lock-free.
+ */
+@Component
+public class AlertRouting {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertRouting.class);
+
+    private static final String[] SCHEMA_SQL = {
+            "ALTER TABLE monitored_targets ADD COLUMN IF NOT EXISTS alert_topic VARCHAR(50)",
+            "ALTER TABLE monitoring_groups ADD COLUMN IF NOT EXISTS alert_topic VARCHAR(50)"
+    };
+
+    private static final String ROUTES_SQL = """
+            SELECT t.id, COALESCE(t.alert_topic, g.alert_topic) AS topic
+            FROM monitored_targets t
+            LEFT JOIN monitoring_groups g ON g.id = t.group_id
+            WHERE COALESCE(t.alert_topic, g.alert_topic) IS NOT NULL
+            """;
+
+    /**
+     * @param topics       topic names known to the bot; empty if never loaded
+     * @param targetTopics per-target topic, only for targets that override the default
+     */
+    private record Routes(Set<String> topics, Map<Long, String> targetTopics) {
+        static final Routes EMPTY = new Routes(Set.of(), Map.of());
+    }
+
+    private final TelegramTopicRepository topicRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final String defaultTopic;
+    private final long refreshIntervalMs;
+    private final ScheduledExecutorService refresher;
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private volatile Routes routes = Routes.EMPTY;
+
+    public AlertRouting(
+            TelegramTopicRepository topicRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.alerts.routing.default-topic:monitoring}") String defaultTopic,
+            @Value("${app.alerts.routing.refresh-interval-ms:300000}") long refreshIntervalMs) {
+        this.topicRepository = topicRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultTopic = defaultTopic;
+        this.refreshIntervalMs = Math.max(10_000, refreshIntervalMs);
+        this.refresher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("AlertRouting").factory());
+    }
+
+    @PostConstruct
+    public void start() {
+        for (String sql : SCHEMA_SQL) {
+            try {
+                jdbcTemplate.execute(sql);
+            } catch (Exception e) {
+                // monitoring_groups is created by the admin panel and may not exist yet
+                logger.warn("Alert routing schema sync skipped ({}): {}", sql, e.getMessage());
+            }
+        }
+        refresh();
+        refresher.scheduleWithFixedDelay(this::refresh, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Reload the table in the background. Invalidations arriving while a
+     * reload is already queued fold into it.
+     */
+    public void invalidate() {
+        if (refreshQueued.compareAndSet(false, true)) {
+            try {
+                refresher.execute(() -> {
+                    refreshQueued.set(false);
+                    refresh();
+                });
+            } catch (RuntimeException e) {
+                refreshQueued.set(false);
+                logger.debug("Alert routing refresher not accepting tasks: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Topic alerts of the target go to. A route naming a topic that does not
+     * exist falls back to the default topic.
+     */
+    public String topicFor(long targetId) {
+        Routes current = routes;
+        String topic = current.targetTopics().get(targetId);
+        if (topic == null) {
+            return defaultTopic;
+        }
+        if (!isKnown(current, topic)) {
+            logger.warn("Target {} routes to unknown topic '{}', using '{}'", targetId, topic, defaultTopic);
+            return defaultTopic;
+        }
+        return topic;
+    }
+
+    /**
+     * Whether the bot knows the topic. Until the topic list has loaded once
+     * every topic is accepted, so a database outage at startup does not
+     * swallow alerts.
+     */
+    public boolean isKnown(String topic) {
+        return isKnown(routes, topic);
+    }
+
+    private static boolean isKnown(Routes current, String topic) {
+        return current.topics().isEmpty() || current.topics().contains(topic);
+    }
+
+    private void refresh() {
+        try {
+            Set<String> topics = new HashSet<>();
+            for (TelegramTopic topic : topicRepository.findAll()) {
+                topics.add(topic.getName());
+            }
+
+            Map<Long, String> targetTopics = new HashMap<>();
+            try {
+                jdbcTemplate.query(ROUTES_SQL, (RowCallbackHandler) rs ->
+                        targetTopics.put(rs.getLong("id"), rs.getString("topic")));
+            } catch (Exception e) {
+                // Columns not there yet (admin panel not started): default routing only
+                logger.warn("Per-target alert routes unavailable: {}", e.getMessage());
+            }
+
+            routes = new Routes(Set.copyOf(topics), Map.copyOf(targetTopics));
+            logger.info("🧭 Alert routing loaded: {} topics, {} routed targets", topics.size(), targetTopics.size());
+        } catch (Exception e) {
+            logger.error("❌ Failed to load alert routing, keeping previous table: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.netadmin.agent.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Delivers alerts to the Telegram bot over Redis.
+ *
+ * Two transports:
+ * - STREAM (default): XADD to a Redis Stream trimmed to about {@code maxlen}
+ *   entries. The bot reads it through a consumer group and acks after
+ *   delivery, so alerts published while the bot is reconnecting are picked
+ *   up when it comes back instead of being lost.
+ * - PUBSUB: the legacy fire-and-forget publish on {@code bot_alerts}.
+ *
+ * Either way, a batch is sent as one pipelined round trip. Alerts are encoded
+ * as versioned JSON ({@link AlertPayloadCodec}) unless {@code payload.format}
+ * is {@code legacy}, which keeps the plain topic/text format for bots that
+ * have not been migrated yet.
+ */
+@Component
+public class AlertTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertTransport.class);
+    private static final byte[] PUBSUB_CHANNEL = "bot_alerts".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FIELD_ID = "id".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FIELD_TOPIC = "topic".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FIELD_TEXT = "text".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FIELD_VERSION = "v".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FIELD_PAYLOAD = "payload".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] VERSION_BYTES =
+            String.valueOf(AlertPayloadCodec.VERSION).getBytes(StandardCharsets.UTF_8);
+
+    enum Mode {
+        STREAM,
+        PUBSUB
+    }
+
+    /** Wire format of the alert itself. */
+    enum Format {
+        /** Versioned JSON, see {@link AlertPayloadCodec}. */
+        JSON,
+        /** Plain topic and text: {@code topic|text} on pub/sub, topic/text fields on the stream. */
+        LEGACY
+    }
+
+    /**
+     * One alert ready to leave the agent. The id is the dedup key the bot
+     * uses to skip an alert it already posted; events are the structured
+     * transitions behind the text (empty for free-form alerts).
+     */
+    public record OutboundAlert(String id, String topic, String message, List<AlertEvent> events) {
+
+        public static OutboundAlert of(String topic, String message) {
+            return of(topic, message, List.of());
+        }
+
+        public static OutboundAlert of(String topic, String message, List<AlertEvent> events) {
+            return new OutboundAlert(UUID.randomUUID().toString(), topic, message, events);
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final AlertPayloadCodec codec;
+    private final Mode mode;
+    private final Format format;
+    private final byte[] streamKey;
+    private final RedisStreamCommands.XAddOptions addOptions;
+
+    public AlertTransport(
+            StringRedisTemplate redisTemplate,
+            AlertPayloadCodec codec,
+            @Value("${app.alerts.transport:stream}") String mode,
+            @Value("${app.alerts.payload.format:json}") String format,
+            @Value("${app.alerts.stream.key:bot_alerts_stream}") String streamKey,
+            @Value("${app.alerts.stream.maxlen:10000}") long maxLen) {
+        this.redisTemplate = redisTemplate;
+        this.codec = codec;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.format = Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        this.streamKey = streamKey.getBytes(StandardCharsets.UTF_8);
+        // "~" trimming: Redis trims whole macro nodes, far cheaper than an exact MAXLEN
+        this.addOptions = RedisStreamCommands.XAddOptions.maxlen(Math.max(1, maxLen)).approximateTrimming(true);
+        logger.info("📮 Alert transport: {} ({} payload)", this.mode, this.format);
+    }
+
+    /**
+     * Send all alerts in one pipelined round trip.
+     *
+     * @throws org.springframework.dao.DataAccessException if Redis is unavailable
+     */
+    public void send(List<OutboundAlert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (OutboundAlert alert : alerts) {
+                if (mode == Mode.STREAM) {
+                    connection.streamCommands().xAdd(MapRecord.create(streamKey, streamFields(alert)), addOptions);
+                } else {
+                    connection.publish(PUBSUB_CHANNEL, pubSubPayload(alert));
+                }
+            }
+            return null;
+        });
+    }
+
+    private Map<byte[], byte[]> streamFields(OutboundAlert alert) {
+        byte[] id = alert.id().getBytes(StandardCharsets.UTF_8);
+        if (format == Format.JSON) {
+            return Map.of(
+                    FIELD_VERSION, VERSION_BYTES,
+                    FIELD_ID, id,
+                    FIELD_PAYLOAD, codec.encode(alert));
+        }
+        return Map.of(
+                FIELD_ID, id,
+                FIELD_TOPIC, alert.topic().getBytes(StandardCharsets.UTF_8),
+                FIELD_TEXT, alert.message().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private byte[] pubSubPayload(OutboundAlert alert) {
+        if (format == Format.JSON) {
+            return codec.encode(alert);
+        }
+        return (alert.topic() + "|" + alert.message()).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,127 @@
+package com.netadmin.agent.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * DDL and retention for the {@code check_results} history table.
+ *
+ * The table is range-partitioned by {@code ts} into one partition per UTC day
+ * ({@code check_results_yyyyMMdd}). Upcoming days are created ahead of time so
+ * COPY never hits a missing partition, and retention drops whole partitions:
+ * no DELETE, no dead tuples, no vacuum debt.
+ *
+ * There is deliberately no DEFAULT partition: rows landing there would block
+ * creating the real partition of their day later. Past days the journal
+ * backlog still needs (e.g. after the database was recreated) are created on
+ * demand instead, as far back as the retention window reaches.
+ */
+@Component
+public class CheckResultPartitions {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckResultPartitions.class);
+    private static final String PREFIX = "check_results_";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final String CREATE_PARENT_SQL = """
+            CREATE TABLE IF NOT EXISTS check_results (
+                target_id BIGINT NOT NULL,
+                ts TIMESTAMP WITH TIME ZONE NOT NULL,
+                status VARCHAR(8) NOT NULL,
+                rtt_us INT,
+                probe_type VARCHAR(8)
+            ) PARTITION BY RANGE (ts)
+            """;
+
+    private static final String CREATE_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_check_results_target_ts ON check_results (target_id, ts)";
+
+    private static final String LIST_PARTITIONS_SQL = """
+            SELECT c.relname FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class p ON p.oid = i.inhparent
+            WHERE p.relname = 'check_results'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int retentionDays;
+    private final int precreateDays;
+
+    public CheckResultPartitions(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.monitoring.history.retention-days:30}") int retentionDays,
+            @Value("${app.monitoring.history.precreate-days:2}") int precreateDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionDays = Math.max(1, retentionDays);
+        this.precreateDays = Math.max(1, precreateDays);
+    }
+
+    /**
+     * Create the parent table, the partitions from {@code firstNeeded} (the day
+     * of the oldest result not yet written, or null) through the upcoming days,
+     * and drop partitions that fell out of the retention window. Idempotent.
+     */
+    public void maintain(LocalDate firstNeeded) {
+        jdbcTemplate.execute(CREATE_PARENT_SQL);
+        jdbcTemplate.execute(CREATE_INDEX_SQL);
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        ensure(firstNeeded != null ? firstNeeded : today, today.plusDays(precreateDays));
+        dropExpired(oldestRetainedDay());
+    }
+
+    /**
+     * Create the partitions of {@code from} through {@code to}, clamped to the
+     * retention window and the pre-created days: rows outside it are not kept.
+     */
+    public void ensure(LocalDate from, LocalDate to) {
+        LocalDate first = from.isBefore(oldestRetainedDay()) ? oldestRetainedDay() : from;
+        LocalDate lastAllowed = LocalDate.now(ZoneOffset.UTC).plusDays(precreateDays);
+        LocalDate last = to.isAfter(lastAllowed) ? lastAllowed : to;
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            createPartition(day);
+        }
+    }
+
+    /** Oldest day whose partition retention keeps; older rows are not worth writing. */
+    public LocalDate oldestRetainedDay() {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays);
+    }
+
+    private void createPartition(LocalDate day) {
+        jdbcTemplate.execute(String.format(
+                "CREATE TABLE IF NOT EXISTS %s%s PARTITION OF check_results "
+                        + "FOR VALUES FROM ('%s 00:00:00+00') TO ('%s 00:00:00+00')",
+                PREFIX, day.format(SUFFIX), day, day.plusDays(1)));
+    }
+
+    private void dropExpired(LocalDate oldestKept) {
+        List<String> partitions = jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class);
+        for (String partition : partitions) {
+            LocalDate day = parseDay(partition);
+            if (day != null && day.isBefore(oldestKept)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                logger.info("🗑️ Dropped check history partition {} (retention {} days)", partition, retentionDays);
+            }
+        }
+    }
+
+    private static LocalDate parseDay(String partition) {
+        if (!partition.startsWith(PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(PREFIX.length()), SUFFIX);
+        } catch (RuntimeException e) {
+            return null; // not one of ours
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.netadmin.agent.service;
+
+import com.netadmin.agent.probe.ProbeResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only history of every check, ingested into {@code check_results}.
+ *
+ * Check threads append to the local {@link ProbeJournal} (allocation-free,
+ * never blocks); one flusher thread tails the journal from its replay
+ * watermark and streams each batch through a single PgJDBC
+ * {@code COPY ... FROM STDIN}. COPY avoids per-row statement overhead, so one
+ * connection keeps up with tens of thousands of rows per second.
+ *
+ * While Postgres is slow or down the watermark just stops moving and results
+ * pile up in the journal; they are replayed once COPY succeeds again. Only
+ * records overwritten by the ring before they could be replayed are lost
+ * (counted as dropped). Delivery is at-least-once: a crash between COPY and
+ * the watermark update replays that batch again.
+ *
+ * A batch rejected for its data rather than an outage (SQLSTATE class 22/23,
+ * e.g. no partition for a row's day) must not hold the watermark forever:
+ * the missing partitions are created, then the batch is retried in halves
+ * and rows that still fail on their own are skipped (counted as rejected).
+ * Rows older than the retention window are not written at all.
+ *
+ * Partition creation and retention are delegated to {@link CheckResultPartitions}
+ * and run on the same thread once per maintenance interval.
+ */
+@Component
+public class CheckResultRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckResultRecorder.class);
+    private static final String COPY_SQL =
+            "COPY check_results (target_id, ts, status, rtt_us, probe_type) FROM STDIN WITH (FORMAT text)";
+    private static final Duration MAINTENANCE_INTERVAL = Duration.ofHours(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CheckResultPartitions partitions;
+    private final ProbeJournal journal;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final ScheduledExecutorService flusher;
+    private final ByteArrayOutputStream copyBuffer = new ByteArrayOutputStream(1 << 16);
+    private final StringBuilder line = new StringBuilder(96);
+    private final Timer copyTimer;
+    private final Counter rowsWritten;
+    private final Counter rowsDropped;
+    private final Counter rowsExpired;
+    private final Counter rowsRejected;
+
+    // Flusher thread only
+    private final int[] lineStarts;
+    private int batchRows;
+    private long batchMinDay;
+    private long batchMaxDay;
+    private boolean databaseDown;
+
+    public CheckResultRecorder(
+            JdbcTemplate jdbcTemplate,
+            CheckResultPartitions partitions,
+            ProbeJournal journal,
+            MeterRegistry meterRegistry,
+            @Value("${app.monitoring.history.enabled:true}") boolean enabled,
+            @Value("${app.monitoring.history.flush-interval-ms:1000}") long flushIntervalMs,
+            @Value("${app.monitoring.history.batch-size:20000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitions = partitions;
+        this.journal = journal;
+        this.enabled = enabled;
+        this.flushInterval = Duration.ofMillis(Math.max(10, flushIntervalMs));
+        this.batchSize = Math.max(1, batchSize);
+        this.lineStarts = new int[this.batchSize + 1];
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("CheckResultRecorder").factory());
+        this.copyTimer = Timer.builder("netadmin.history.copy")
+                .description("Duration of one COPY batch into check_results")
+                .register(meterRegistry);
+        this.rowsWritten = Counter.builder("netadmin.history.rows")
+                .description("Check results written to check_results")
+                .register(meterRegistry);
+        this.rowsDropped = Counter.builder("netadmin.history.dropped")
+                .description("Check results overwritten in the journal before they reached the database")
+                .register(meterRegistry);
+        this.rowsExpired = Counter.builder("netadmin.history.expired")
+                .description("Journaled check results skipped because they are older than the retention window")
+                .register(meterRegistry);
+        this.rowsRejected = Counter.builder("netadmin.history.rejected")
+                .description("Check results skipped because the database rejected the row")
+                .register(meterRegistry);
+        Gauge.builder("netadmin.history.backlog", journal, ProbeJournal::backlog)
+                .description("Journaled check results not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            logger.info("Check history disabled");
+            return;
+        }
+        flusher.scheduleWithFixedDelay(this::maintainPartitions,
+                0, MAINTENANCE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::flush,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        logger.info("📚 Check history recorder started (batch {} rows, every {}ms)", batchSize, flushInterval.toMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (enabled) {
+            flush();
+        }
+    }
+
+    /**
+     * Journal the outcome of one check. Never blocks.
+     */
+    public void record(Long targetId, ProbeResult result) {
+        Instant checkedAt = result.checkedAt();
+        long micros = checkedAt.getEpochSecond() * 1_000_000L + checkedAt.getNano() / 1000;
+        int rtt = (int) Math.min(result.rttMicros(), Integer.MAX_VALUE);
+        journal.append(targetId, micros, rtt, result.status(), result.type());
+    }
+
+    private void maintainPartitions() {
+        try {
+            // Cover the backlog too, not only today onward
+            ProbeJournal.Entry oldestPending = journal.read(journal.replaySeq());
+            partitions.maintain(oldestPending != null ? LocalDate.ofEpochDay(dayOf(oldestPending.checkedAt())) : null);
+        } catch (Exception e) {
+            logger.error("❌ Check history partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replay everything between the watermark and the write position, batch by batch.
+     * Stops at the first record still being written, or when COPY fails.
+     */
+    private void flush() {
+        while (true) {
+            long from = journal.replaySeq();
+            long oldest = journal.oldestAvailable();
+            if (from < oldest) {
+                rowsDropped.increment(oldest - from);
+                logger.warn("Journal wrapped before replay, {} check results lost", oldest - from);
+                from = oldest;
+                journal.setReplaySeq(from);
+            }
+
+            long to = encodeBatch(from, Math.min(journal.writeSeq(), from + batchSize));
+            if (to == from) {
+                return;
+            }
+            try {
+                if (batchRows > 0) {
+                    copyBatch(copyBuffer.toByteArray());
+                }
+            } catch (Exception e) {
+                if (!databaseDown) {
+                    databaseDown = true;
+                    logger.error("❌ COPY into check_results failed, keeping results in journal (backlog {}): {}",
+                            journal.backlog(), e.getMessage());
+                }
+                return;
+            }
+            journal.setReplaySeq(to);
+            if (databaseDown) {
+                databaseDown = false;
+                logger.info("✅ check_results writable again, replaying journal backlog {}", journal.backlog());
+            }
+        }
+    }
+
+    /**
+     * COPY the encoded batch. If the database rejects it for its rows, create
+     * the partitions of the batch's days and retry; rows still rejected are
+     * isolated by halving and skipped.
+     *
+     * @throws RuntimeException if the database is unavailable; nothing is skipped then
+     */
+    private void copyBatch(byte[] data) {
+        try {
+            copyLines(data, 0, batchRows);
+            return;
+        } catch (RuntimeException e) {
+            if (!isRowError(e)) {
+                throw e;
+            }
+            logger.warn("⚠️ COPY rejected a batch of {} check results ({}), creating missing partitions and retrying",
+                    batchRows, e.getMessage());
+        }
+        partitions.ensure(LocalDate.ofEpochDay(batchMinDay), LocalDate.ofEpochDay(batchMaxDay));
+        int skipped = copyOrSkip(data, 0, batchRows);
+        if (skipped > 0) {
+            logger.warn("Skipped {} check results the database rejected", skipped);
+        }
+    }
+
+    /** @return rows skipped */
+    private int copyOrSkip(byte[] data, int fromLine, int toLine) {
+        try {
+            copyLines(data, fromLine, toLine);
+            return 0;
+        } catch (RuntimeException e) {
+            if (!isRowError(e)) {
+                throw e;
+            }
+            if (toLine - fromLine == 1) {
+                String row = new String(data, lineStarts[fromLine],
+                        lineStarts[toLine] - lineStarts[fromLine] - 1, StandardCharsets.UTF_8);
+                logger.warn("Skipping check result rejected by the database [{}]: {}", row, e.getMessage());
+                rowsRejected.increment();
+                return 1;
+            }
+            int mid = (fromLine + toLine) >>> 1;
+            return copyOrSkip(data, fromLine, mid) + copyOrSkip(data, mid, toLine);
+        }
+    }
+
+    /**
+     * Whether the failure is about the rows (data exception, constraint or
+     * missing partition) rather than the database being unreachable.
+     */
+    private static boolean isRowError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getSQLState() != null) {
+                String state = sql.getSQLState();
+                return state.startsWith("22") || state.startsWith("23");
+            }
+        }
+        return false;
+    }
+
+    private static long dayOf(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), 86_400L);
+    }
+
+    /**
+     * COPY text format: tab-separated, \N for NULL. All values are numbers,
+     * timestamps or enum names, so nothing needs escaping.
+     *
+     * @return seq after the last encoded record
+     */
+    private long encodeBatch(long from, long to) {
+        copyBuffer.reset();
+        batchRows = 0;
+        batchMinDay = Long.MAX_VALUE;
+        batchMaxDay = Long.MIN_VALUE;
+        long oldestDay = partitions.oldestRetainedDay().toEpochDay();
+        long expired = 0;
+        long seq = from;
+        for (; seq < to; seq++) {
+            ProbeJournal.Entry entry = journal.read(seq);
+            if (entry == null) {
+                if (journal.isPending(seq)) {
+                    break; // writer still busy; resume here next time
+                }
+                continue; // overwritten meanwhile
+            }
+            long day = dayOf(entry.checkedAt());
+            if (day < oldestDay) {
+                expired++; // its partition is (or is about to be) dropped
+                continue;
+            }
+            batchMinDay = Math.min(batchMinDay, day);
+            batchMaxDay = Math.max(batchMaxDay, day);
+            lineStarts[batchRows] = copyBuffer.size();
+            line.setLength(0);
+            line.append(entry.targetId()).append('\t')
+                    .append(entry.checkedAt()).append('\t')
+                    .append(entry.status().name()).append('\t');
+            if (entry.rttMicros() >= 0) {
+                line.append(entry.rttMicros());
+            } else {
+                line.append("\\N");
+            }
+            line.append('\t').append(entry.type().name()).append('\n');
+            copyBuffer.writeBytes(line.toString().getBytes(StandardCharsets.UTF_8));
+            batchRows++;
+        }
+        lineStarts[batchRows] = copyBuffer.size();
+        if (expired > 0) {
+            rowsExpired.increment(expired);
+            logger.warn("Skipped {} journaled check results older than the retention window", expired);
+        }
+        return seq;
+    }
+
+    /** COPY lines {@code [fromLine, toLine)} of the encoded batch. */
+    private void copyLines(byte[] data, int fromLine, int toLine) {
+        int offset = lineStarts[fromLine];
+        int length = lineStarts[toLine] - offset;
+        int rows = toLine - fromLine;
+        long startNanos = System.nanoTime();
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            try {
+                copyIn.writeToCopy(data, offset, length);
+                return copyIn.endCopy();
+            } catch (SQLException e) {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+                throw e;
+            }
+        });
+        copyTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        rowsWritten.increment(rows);
+    }
+}
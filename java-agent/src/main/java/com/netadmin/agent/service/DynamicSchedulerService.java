@@ -1,52 +1,144 @@
 package com.netadmin.agent.service;
 
 import com.netadmin.agent.model.MonitoredTarget;
+import com.netadmin.agent.probe.ProbeRegistry;
+import com.netadmin.agent.probe.ProbeRequest;
+import com.netadmin.agent.probe.ProbeResult;
 import com.netadmin.agent.repository.MonitoredTargetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
-import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Dynamic Scheduler Service for network monitoring.
  * 
+ * Targets are scheduled on a {@link HashedTimingWheel}: one compact node per
+ * target, O(1) insert/cancel. The wheel's tick thread only hands due checks
+ * to the check executor (one virtual thread per check), it never runs a probe
+ * itself, so a slow or dead host cannot delay any other target's schedule.
+ * The gap between planned and actual start is exported as
+ * {@code netadmin.scheduler.lag}.
+ *
+ * Schedule changes are requested asynchronously and applied by a single
+ * reconciler thread. Requests arriving within the debounce window are merged
+ * into one reconciliation, and its result is published as an immutable
+ * {@link Schedule} snapshot with a new epoch in a single volatile write.
+ *
  * Thread Safety:
- * - Uses ConcurrentHashMap for scheduled tasks
- * - All DB operations are @Transactional
- * - Scheduler pool handles concurrent execution
+ * - Only the reconciler thread builds and publishes schedules
+ * - Checks read the current snapshot and drop runs of targets no longer in it
+ * - Check state lives in {@link TargetStateTable}; the check path never reads the DB
+ * - At most one check per target is in flight; overlapping runs are skipped
+ * - Status writes go through {@link StatusWriteBehind}, batched per flush;
+ *   by default only transitions are written, liveness goes to {@link AgentHeartbeat}
  */
 @Service
 public class DynamicSchedulerService {
 
     private static final Logger logger = LoggerFactory.getLogger(DynamicSchedulerService.class);
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
 
     private final MonitoredTargetRepository repository;
     private final AlertDispatcher alertDispatcher;
-    private final NetworkService networkService;
-    private final ThreadPoolTaskScheduler taskScheduler;
-    private final Map<Long, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
+    private final ProbeRegistry probeRegistry;
+    private final TargetStateTable stateTable;
+    private final StatusWriteBehind statusWriter;
+    private final CheckResultRecorder checkResults;
+    private final RttRollups rollups;
+    private final RttHistograms histograms;
+    private final Duration probeTimeout;
+    private final Duration initialSpread;
+    private final Duration refreshDebounce;
+    private final boolean persistTransitionsOnly;
+    private final ExecutorService checkExecutor;
+    private final ScheduledExecutorService reconciler;
+    private final HashedTimingWheel timingWheel;
+    private final Set<Long> checksInFlight = ConcurrentHashMap.newKeySet();
+    private final Timer scheduleLag;
+    private final Counter skippedChecks;
+
+    // Guarded by pendingLock
+    private final Object pendingLock = new Object();
+    private PendingScheduleChanges pending = new PendingScheduleChanges();
+    private boolean reconcileScheduled;
+
+    private volatile Schedule schedule = new Schedule(0, Map.of());
 
     public DynamicSchedulerService(
             MonitoredTargetRepository repository, 
             AlertDispatcher alertDispatcher,
-            NetworkService networkService) {
+            ProbeRegistry probeRegistry,
+            TargetStateTable stateTable,
+            StatusWriteBehind statusWriter,
+            CheckResultRecorder checkResults,
+            RttRollups rollups,
+            RttHistograms histograms,
+            MeterRegistry meterRegistry,
+            @Value("${app.monitoring.probe.timeout-ms:3000}") long probeTimeoutMs,
+            @Value("${app.monitoring.scheduler.tick-ms:100}") long tickMs,
+            @Value("${app.monitoring.scheduler.wheel-size:512}") int wheelSize,
+            @Value("${app.monitoring.scheduler.initial-spread-ms:30000}") long initialSpreadMs,
+            @Value("${app.monitoring.scheduler.refresh-debounce-ms:500}") long refreshDebounceMs,
+            @Value("${app.monitoring.write-behind.transitions-only:true}") boolean persistTransitionsOnly) {
         this.repository = repository;
         this.alertDispatcher = alertDispatcher;
-        this.networkService = networkService;
-        this.taskScheduler = new ThreadPoolTaskScheduler();
-        this.taskScheduler.setPoolSize(10);
-        this.taskScheduler.setThreadNamePrefix("DynamicScheduler-");
-        this.taskScheduler.initialize();
+        this.probeRegistry = probeRegistry;
+        this.stateTable = stateTable;
+        this.statusWriter = statusWriter;
+        this.checkResults = checkResults;
+        this.rollups = rollups;
+        this.histograms = histograms;
+        this.probeTimeout = Duration.ofMillis(probeTimeoutMs);
+        this.initialSpread = Duration.ofMillis(initialSpreadMs);
+        this.refreshDebounce = Duration.ofMillis(Math.max(0, refreshDebounceMs));
+        this.persistTransitionsOnly = persistTransitionsOnly;
+        this.checkExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("DynamicScheduler-check-", 0).factory());
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("DynamicScheduler-reconciler").factory());
+        this.scheduleLag = Timer.builder("netadmin.scheduler.lag")
+                .description("Delay between planned and actual start of a monitoring check")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.skippedChecks = Counter.builder("netadmin.scheduler.skipped")
+                .description("Checks skipped because the previous check of the target was still running")
+                .register(meterRegistry);
+        Gauge.builder("netadmin.scheduler.epoch", this, service -> service.schedule.epoch())
+                .description("Epoch of the currently published monitoring schedule")
+                .register(meterRegistry);
+        Gauge.builder("netadmin.scheduler.targets", this, service -> service.schedule.targets().size())
+                .description("Targets in the currently published monitoring schedule")
+                .register(meterRegistry);
+        this.timingWheel = new HashedTimingWheel("DynamicScheduler-wheel",
+                Duration.ofMillis(tickMs), wheelSize, checkExecutor);
     }
 
     @PostConstruct
@@ -55,119 +147,417 @@ public class DynamicSchedulerService {
         refreshSchedule();
     }
 
+    @PreDestroy
+    public void shutdown() {
+        reconciler.shutdownNow();
+        timingWheel.stop();
+        checkExecutor.shutdownNow();
+    }
+
+    /**
+     * Request a full reconciliation with the active targets in the database.
+     *
+     * Only the difference is applied: new targets are scheduled, removed ones
+     * cancelled, targets whose interval changed are re-armed, and hostname/probe
+     * changes are swapped in place. Unchanged targets keep their phase, so a
+     * refresh never causes a synchronized burst of probes.
+     */
     public void refreshSchedule() {
-        logger.info("🔄 Refreshing monitoring schedule...");
-        
-        // Cancel existing tasks
-        int cancelledCount = scheduledTasks.size();
-        scheduledTasks.values().forEach(future -> future.cancel(false));
-        scheduledTasks.clear();
-        
-        if (cancelledCount > 0) {
-            logger.info("Cancelled {} existing monitoring tasks", cancelledCount);
+        requestChange(PendingScheduleChanges::resync);
+    }
+
+    /**
+     * Request targeted changes without reloading the whole table.
+     *
+     * @param upserts   targets that were created or edited and are active
+     * @param removedIds targets that were deleted or deactivated
+     */
+    public void applyChanges(Collection<TargetSpec> upserts, Collection<Long> removedIds) {
+        List<TargetSpec> upsertsCopy = List.copyOf(upserts);
+        List<Long> removedCopy = List.copyOf(removedIds);
+        requestChange(changes -> {
+            changes.remove(removedCopy);
+            changes.upsert(upsertsCopy);
+        });
+    }
+
+    /**
+     * Request a re-read of only the given targets from the database.
+     * Used for change events that carry ids but no target payload.
+     */
+    public void reloadTargets(Collection<Long> targetIds) {
+        List<Long> idsCopy = List.copyOf(targetIds);
+        requestChange(changes -> changes.reload(idsCopy));
+    }
+
+    /** Epoch of the currently published schedule; increases with every reconciliation. */
+    public long scheduleEpoch() {
+        return schedule.epoch();
+    }
+
+    /**
+     * Merge a change into the pending batch. The first request of a batch
+     * schedules a reconciliation one debounce window later; requests arriving
+     * meanwhile just join the batch.
+     */
+    private void requestChange(Consumer<PendingScheduleChanges> change) {
+        synchronized (pendingLock) {
+            change.accept(pending);
+            scheduleReconcile(refreshDebounce);
         }
+    }
 
-        // Load active targets from DB
-        List<MonitoredTarget> targets = repository.findByIsActiveTrue();
-        logger.info("Found {} active targets to monitor", targets.size());
-        
-        for (MonitoredTarget target : targets) {
-            scheduleTarget(target);
+    private void scheduleReconcile(Duration delay) {
+        synchronized (pendingLock) {
+            if (reconcileScheduled || reconciler.isShutdown()) {
+                return;
+            }
+            reconcileScheduled = true;
+            reconciler.schedule(this::reconcile, delay.toMillis(), TimeUnit.MILLISECONDS);
         }
-        
-        logger.info("✅ Monitoring schedule refreshed: {} targets active", targets.size());
     }
 
-    private void scheduleTarget(MonitoredTarget target) {
-        if (target.getIntervalSeconds() == null || target.getIntervalSeconds() <= 0) {
-            logger.warn("Target {} has invalid interval, skipping", target.getName());
+    /**
+     * Single writer: runs only on the reconciler thread. Builds the next
+     * schedule from the current snapshot plus the pending batch, publishes it,
+     * then brings the timing wheel in line with it.
+     */
+    private void reconcile() {
+        PendingScheduleChanges changes;
+        synchronized (pendingLock) {
+            changes = pending;
+            pending = new PendingScheduleChanges();
+            reconcileScheduled = false;
+        }
+        if (changes.isEmpty()) {
             return;
         }
 
-        ScheduledFuture<?> future = taskScheduler.scheduleAtFixedRate(
-                () -> performCheck(target.getId()),
-                target.getIntervalSeconds() * 1000L
+        Schedule current = schedule;
+        ScheduleBuilder builder = new ScheduleBuilder(current);
+        try {
+            if (changes.isResync()) {
+                logger.info("🔄 Refreshing monitoring schedule...");
+                builder.resync(repository.findByIsActiveTrue());
+            } else {
+                changes.removals().forEach(builder::remove);
+                changes.upserts().forEach(builder::upsert);
+                if (!changes.reloads().isEmpty()) {
+                    builder.reload(changes.reloads(), repository.findAllById(changes.reloads()));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("❌ Schedule reconciliation failed, retrying full resync in {}s: {}",
+                    RETRY_DELAY.toSeconds(), e.getMessage(), e);
+            synchronized (pendingLock) {
+                pending.resync();
+                scheduleReconcile(RETRY_DELAY);
+            }
+            return;
+        }
+
+        Schedule next = new Schedule(current.epoch() + 1, Map.copyOf(builder.targets));
+        schedule = next;
+
+        // State table and timers follow the published snapshot
+        for (ScheduledTarget removed : builder.cancelled) {
+            stateTable.remove(removed.spec().id());
+            histograms.remove(removed.spec().id());
+        }
+        for (MonitoredTarget target : builder.loaded) {
+            if (next.targets().containsKey(target.getId())) {
+                stateTable.seed(target.getId(), target.getLastStatus(), target.getLastCheck(),
+                        next.targets().get(target.getId()).spec().intervalSeconds());
+            }
+        }
+        builder.toArm.forEach(scheduled ->
+                stateTable.track(scheduled.spec().id(), scheduled.spec().intervalSeconds()));
+        builder.cancelled.forEach(ScheduledTarget::cancel);
+        builder.toArm.forEach(scheduled -> arm(scheduled, initialDelayNanos(scheduled.spec())));
+
+        logger.info("✅ Monitoring schedule epoch {}: {} targets active {} ({} requests coalesced)",
+                next.epoch(), next.targets().size(), builder.stats, changes.requests());
+    }
+
+    private void arm(ScheduledTarget scheduled, long initialDelayNanos) {
+        TargetSpec spec = scheduled.spec();
+        Long targetId = spec.id();
+        HashedTimingWheel.Timeout timeout = timingWheel.schedulePeriodic(
+                scheduledNanoTime -> runCheck(targetId, scheduledNanoTime),
+                initialDelayNanos,
+                TimeUnit.SECONDS.toNanos(spec.intervalSeconds())
         );
-        scheduledTasks.put(target.getId(), future);
-        
-        logger.info("📡 Scheduled monitoring: {} ({}) every {}s", 
-            target.getName(), target.getHostname(), target.getIntervalSeconds());
+        scheduled.replaceTimeout(timeout);
+
+        logger.debug("📡 Scheduled monitoring: {} ({}) via {} every {}s",
+            spec.name(), spec.hostname(), spec.probeType(), spec.intervalSeconds());
+    }
+
+    /**
+     * Spread first checks of newly scheduled targets over their interval
+     * (at most initialSpread) by target id, instead of firing all at once.
+     */
+    private long initialDelayNanos(TargetSpec spec) {
+        long window = Math.min(TimeUnit.SECONDS.toNanos(spec.intervalSeconds()), initialSpread.toNanos());
+        if (window <= 0) {
+            return 0;
+        }
+        return Math.floorMod(spec.id() * 0x9E3779B97F4A7C15L, window);
+    }
+
+    private ProbeRequest toProbeRequest(TargetSpec spec) {
+        return new ProbeRequest(
+                spec.probeType(),
+                spec.hostname(),
+                spec.probePort(),
+                spec.probePath(),
+                probeTimeout);
+    }
+
+    /**
+     * Map a probe outcome to the target status vocabulary (UP / DOWN / ERROR).
+     * A timeout is reported as DOWN, like a failed ping always was.
+     */
+    private static String toTargetStatus(ProbeResult result) {
+        return switch (result.status()) {
+            case UP -> "UP";
+            case DOWN, TIMEOUT -> "DOWN";
+            case ERROR -> "ERROR";
+        };
+    }
+
+    /**
+     * Entry point for a due check, running on its own virtual thread.
+     */
+    private void runCheck(Long targetId, long scheduledNanoTime) {
+        scheduleLag.record(System.nanoTime() - scheduledNanoTime, TimeUnit.NANOSECONDS);
+
+        ScheduledTarget scheduled = schedule.targets().get(targetId);
+        if (scheduled == null) {
+            // Fired just before the reconciler cancelled it
+            return;
+        }
+
+        if (!checksInFlight.add(targetId)) {
+            skippedChecks.increment();
+            logger.debug("Previous check of target {} still running, skipping this run", targetId);
+            return;
+        }
+        try {
+            performCheck(scheduled.spec());
+        } finally {
+            checksInFlight.remove(targetId);
+        }
     }
 
     /**
      * Perform health check for a target.
-     * This method is called from scheduler threads - must be thread-safe.
+     * This method is called from check executor threads - must be thread-safe.
+     * Reads nothing from the database: config comes from the published
+     * schedule, the previous status from the state table.
      */
-    @Transactional
-    protected void performCheck(Long targetId) {
-        repository.findById(targetId).ifPresent(target -> {
-            String hostname = target.getHostname();
-            String previousStatus = target.getLastStatus();
-            LocalDateTime checkTime = LocalDateTime.now();
+    private void performCheck(TargetSpec target) {
+        String hostname = target.hostname();
+        TargetStateTable.TargetState previous = stateTable.get(target.id()).orElse(TargetStateTable.TargetState.UNKNOWN);
+        String previousStatus = previous.lastStatus();
+        LocalDateTime checkTime = LocalDateTime.now();
+        
+        try {
+            // Run the probe selected for this target (ICMP by default)
+            ProbeResult result = probeRegistry.probe(toProbeRequest(target)).join();
+            checkResults.record(target.id(), result);
+            rollups.record(target.id(), result);
+            histograms.record(target.id(), result.rttMicros());
+            String currentStatus = toTargetStatus(result);
             
-            try {
-                // Use robust NetworkService ping
-                boolean reachable = networkService.ping(hostname);
-                String currentStatus = reachable ? "UP" : "DOWN";
-                
-                // Log ping result
-                if (reachable) {
-                    logger.debug("✓ {} ({}) is UP", target.getName(), hostname);
-                } else {
-                    logger.warn("✗ {} ({}) is DOWN", target.getName(), hostname);
-                }
-                
-                // Alert Logic: State change detection
-                if ("DOWN".equals(currentStatus) && !"DOWN".equals(previousStatus)) {
-                    // Host just went down
-                    String alertMessage = String.format(
-                        "🚨 ALERT: Host %s (%s) is DOWN!\nTime: %s\nPrevious status: %s",
-                        target.getName(),
-                        hostname,
-                        checkTime.format(TIME_FORMATTER),
-                        previousStatus != null ? previousStatus : "UNKNOWN"
-                    );
-                    alertDispatcher.sendAlert("monitoring", alertMessage);
-                    logger.error("🚨 Alert sent: {} is DOWN", target.getName());
+            if ("ERROR".equals(currentStatus)) {
+                throw new IllegalStateException(result.type() + " probe failed: " + result.errorCode());
+            }
+            
+            // Log probe result
+            if (result.isUp()) {
+                logger.debug("✓ {} ({}) is UP via {} ({}us)", target.name(), hostname, result.type(), result.rttMicros());
+            } else {
+                logger.warn("✗ {} ({}) is DOWN via {}: {}", target.name(), hostname, result.type(), result.errorCode());
+            }
+            
+            // Alert Logic: State change detection
+            if ("DOWN".equals(currentStatus) && !"DOWN".equals(previousStatus)) {
+                // Host just went down
+                String alertMessage = String.format(
+                    "🚨 ALERT: Host %s (%s) is DOWN!\nProbe: %s (%s)\nTime: %s\nPrevious status: %s",
+                    target.name(),
+                    hostname,
+                    result.type(),
+                    result.errorCode(),
+                    checkTime.format(TIME_FORMATTER),
+                    previousStatus != null ? previousStatus : "UNKNOWN"
+                );
+                alertDispatcher.sendTargetAlert(alertMessage, new AlertEvent(
+                    target.id(), target.name(), hostname, previousStatus != null ? previousStatus : "UNKNOWN", "DOWN",
+                    AlertEvent.Severity.CRITICAL, result.checkedAt(), toInstant(previous.lastCheck()),
+                    result.rttMicros(), result.type().name(), result.errorCode()));
+                logger.error("🚨 Alert sent: {} is DOWN", target.name());
+            }
+            
+            // Recovery Logic: Host came back up
+            if ("UP".equals(currentStatus) && "DOWN".equals(previousStatus)) {
+                String recoveryMessage = String.format(
+                    "✅ RECOVERY: Host %s (%s) is back UP!\nTime: %s\nDowntime detected at: %s",
+                    target.name(),
+                    hostname,
+                    checkTime.format(TIME_FORMATTER),
+                    previous.lastCheck() != null ? previous.lastCheck().format(TIME_FORMATTER) : "UNKNOWN"
+                );
+                alertDispatcher.sendTargetAlert(recoveryMessage, new AlertEvent(
+                    target.id(), target.name(), hostname, previousStatus, "UP",
+                    AlertEvent.Severity.INFO, result.checkedAt(), toInstant(previous.lastCheck()),
+                    result.rttMicros(), result.type().name(), null));
+                logger.info("✅ Recovery sent: {} is back UP", target.name());
+            }
+            
+            recordStatus(target.id(), previousStatus, currentStatus, checkTime);
+            
+        } catch (Exception e) {
+            logger.error("❌ Error checking {} ({}): {}", target.name(), hostname, e.getMessage(), e);
+            
+            // Set ERROR status and alert if this is a new error state
+            if (!"ERROR".equals(previousStatus)) {
+                String errorMessage = String.format(
+                    "⚠️ ERROR: Unable to check host %s (%s)\nError: %s\nTime: %s",
+                    target.name(),
+                    hostname,
+                    e.getMessage(),
+                    checkTime.format(TIME_FORMATTER)
+                );
+                alertDispatcher.sendTargetAlert(errorMessage, new AlertEvent(
+                    target.id(), target.name(), hostname, previousStatus != null ? previousStatus : "UNKNOWN", "ERROR",
+                    AlertEvent.Severity.WARNING, toInstant(checkTime), toInstant(previous.lastCheck()),
+                    -1, null, e.getMessage()));
+            }
+            
+            recordStatus(target.id(), previousStatus, "ERROR", checkTime);
+        }
+    }
+
+    private static Instant toInstant(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant() : null;
+    }
+
+    /**
+     * Update the in-memory state first (what the next check reads), then
+     * queue it for the next batched database flush. In transitions-only mode
+     * an unchanged status is not written at all; the agent heartbeat
+     * watermark stands in for its last_check.
+     */
+    private void recordStatus(Long targetId, String previousStatus, String status, LocalDateTime checkTime) {
+        stateTable.update(targetId, status, checkTime);
+        if (persistTransitionsOnly && status.equals(previousStatus)) {
+            return;
+        }
+        statusWriter.submit(targetId, status, checkTime);
+    }
+
+    /**
+     * Immutable view of what is scheduled, published as a whole.
+     */
+    private record Schedule(long epoch, Map<Long, ScheduledTarget> targets) {
+    }
+
+    /**
+     * Next schedule under construction. Collects the timer work (arm/cancel)
+     * so it can run after the snapshot is published.
+     */
+    private final class ScheduleBuilder {
+        private final Map<Long, ScheduledTarget> targets;
+        private final List<ScheduledTarget> toArm = new ArrayList<>();
+        private final List<ScheduledTarget> cancelled = new ArrayList<>();
+        private final List<MonitoredTarget> loaded = new ArrayList<>();
+        private final Map<Change, Integer> stats = new EnumMap<>(Change.class);
+
+        private ScheduleBuilder(Schedule current) {
+            this.targets = new HashMap<>(current.targets());
+        }
+
+        private void resync(List<MonitoredTarget> activeTargets) {
+            Set<Long> desired = new HashSet<>(activeTargets.size() * 2);
+            for (MonitoredTarget target : activeTargets) {
+                desired.add(target.getId());
+                loaded.add(target);
+                upsert(TargetSpec.from(target));
+            }
+            for (Long targetId : List.copyOf(targets.keySet())) {
+                if (!desired.contains(targetId)) {
+                    remove(targetId);
                 }
-                
-                // Recovery Logic: Host came back up
-                if ("UP".equals(currentStatus) && "DOWN".equals(previousStatus)) {
-                    String recoveryMessage = String.format(
-                        "✅ RECOVERY: Host %s (%s) is back UP!\nTime: %s\nDowntime detected at: %s",
-                        target.getName(),
-                        hostname,
-                        checkTime.format(TIME_FORMATTER),
-                        target.getLastCheck() != null ? target.getLastCheck().format(TIME_FORMATTER) : "UNKNOWN"
-                    );
-                    alertDispatcher.sendAlert("monitoring", recoveryMessage);
-                    logger.info("✅ Recovery sent: {} is back UP", target.getName());
+            }
+        }
+
+        private void reload(Set<Long> targetIds, Iterable<MonitoredTarget> found) {
+            Set<Long> active = new HashSet<>();
+            for (MonitoredTarget target : found) {
+                if (Boolean.TRUE.equals(target.getIsActive())) {
+                    active.add(target.getId());
+                    loaded.add(target);
+                    upsert(TargetSpec.from(target));
                 }
-                
-                // Update database
-                target.setLastStatus(currentStatus);
-                target.setLastCheck(checkTime);
-                repository.save(target);
-                
-            } catch (Exception e) {
-                logger.error("❌ Error checking {} ({}): {}", target.getName(), hostname, e.getMessage(), e);
-                
-                // Set ERROR status and alert if this is a new error state
-                if (!"ERROR".equals(previousStatus)) {
-                    String errorMessage = String.format(
-                        "⚠️ ERROR: Unable to check host %s (%s)\nError: %s\nTime: %s",
-                        target.getName(),
-                        hostname,
-                        e.getMessage(),
-                        checkTime.format(TIME_FORMATTER)
-                    );
-                    alertDispatcher.sendAlert("monitoring", errorMessage);
+            }
+            for (Long targetId : targetIds) {
+                if (!active.contains(targetId)) {
+                    remove(targetId);
                 }
-                
-                target.setLastStatus("ERROR");
-                target.setLastCheck(checkTime);
-                repository.save(target);
             }
-        });
+        }
+
+        private void upsert(TargetSpec spec) {
+            stats.merge(applyUpsert(spec), 1, Integer::sum);
+        }
+
+        private void remove(Long targetId) {
+            stats.merge(applyRemove(targetId), 1, Integer::sum);
+        }
+
+        private Change applyUpsert(TargetSpec spec) {
+            if (!spec.hasValidInterval()) {
+                logger.warn("Target {} has invalid interval, skipping", spec.name());
+                return applyRemove(spec.id()) == Change.REMOVED ? Change.REMOVED : Change.SKIPPED;
+            }
+
+            ScheduledTarget running = targets.get(spec.id());
+            if (running == null) {
+                ScheduledTarget scheduled = new ScheduledTarget(spec);
+                targets.put(spec.id(), scheduled);
+                toArm.add(scheduled);
+                return Change.ADDED;
+            }
+            if (running.spec().equals(spec)) {
+                return Change.UNCHANGED;
+            }
+            ScheduledTarget updated = running.withSpec(spec);
+            targets.put(spec.id(), updated);
+            if (!running.spec().sameSchedule(spec)) {
+                toArm.add(updated);
+                return Change.RESCHEDULED;
+            }
+            return Change.UPDATED;
+        }
+
+        private Change applyRemove(Long targetId) {
+            ScheduledTarget removed = targets.remove(targetId);
+            if (removed == null) {
+                return Change.UNCHANGED;
+            }
+            cancelled.add(removed);
+            return Change.REMOVED;
+        }
+    }
+
+    private enum Change {
+        ADDED,
+        REMOVED,
+        RESCHEDULED,
+        UPDATED,
+        UNCHANGED,
+        SKIPPED
     }
 }
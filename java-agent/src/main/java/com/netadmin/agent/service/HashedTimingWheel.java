@@ -0,0 +1,273 @@
+package com.netadmin.agent.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel for periodic monitoring checks.
+ *
+ * Each scheduled task is a single {@link Timeout} node living in a doubly-linked
+ * bucket list, so insert and cancel are O(1) regardless of how many targets are
+ * scheduled, and periodic tasks re-arm the same node instead of allocating a
+ * new future per run. Delays longer than one wheel rotation are handled with
+ * a per-node round counter.
+ *
+ * Thread Safety:
+ * - Buckets are only touched by the single tick thread
+ * - schedule()/cancel() from other threads go through lock-free queues
+ * - Due tasks are handed to the dispatch executor; the tick thread never runs them
+ */
+public final class HashedTimingWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor dispatcher;
+    private final Queue<Timeout> pendingAdds = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> pendingCancels = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<Timeout> rearmed = new ArrayDeque<>();
+    private final Thread tickThread;
+    private final long startNanos;
+
+    private volatile boolean running = true;
+    private long tick;
+
+    public HashedTimingWheel(String name, Duration tickDuration, int wheelSize, Executor dispatcher) {
+        if (tickDuration.toNanos() <= 0) {
+            throw new IllegalArgumentException("tickDuration must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1) << 1);
+        this.tickNanos = tickDuration.toNanos();
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.dispatcher = dispatcher;
+        this.startNanos = System.nanoTime();
+        this.tickThread = Thread.ofPlatform().daemon().name(name).start(this::run);
+    }
+
+    /**
+     * Schedule a task to run every {@code periodNanos}, first after {@code initialDelayNanos}.
+     * Runs are fixed-rate relative to the first deadline; if the wheel falls behind,
+     * missed runs are skipped rather than fired back to back, keeping the phase.
+     */
+    public Timeout schedulePeriodic(TimerTask task, long initialDelayNanos, long periodNanos) {
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("periodNanos must be positive");
+        }
+        Timeout timeout = new Timeout(task, relativeNow() + Math.max(0, initialDelayNanos), periodNanos);
+        pendingAdds.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stop ticking. Scheduled tasks are dropped, running tasks are not interrupted.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(tickThread);
+        try {
+            tickThread.join(TimeUnit.NANOSECONDS.toMillis(tickNanos) * 2 + 100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long relativeNow() {
+        return System.nanoTime() - startNanos;
+    }
+
+    private void run() {
+        while (running) {
+            long tickDeadline = tickNanos * (tick + 1);
+            long sleepNanos = tickDeadline - relativeNow();
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                continue;
+            }
+
+            try {
+                processCancellations();
+                transferPendingAdds();
+                expire(wheel[(int) (tick & mask)], tickDeadline);
+            } catch (Exception e) {
+                logger.error("Timing wheel tick failed: {}", e.getMessage(), e);
+            }
+            tick++;
+        }
+    }
+
+    private void processCancellations() {
+        Timeout timeout;
+        while ((timeout = pendingCancels.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPendingAdds() {
+        Timeout timeout;
+        while ((timeout = pendingAdds.poll()) != null) {
+            if (timeout.state == Timeout.ACTIVE) {
+                insert(timeout, tick);
+            }
+        }
+    }
+
+    /**
+     * O(1): pick the bucket by deadline tick, remember how many full rotations remain.
+     * {@code firstTick} is the earliest tick whose bucket is still to be visited:
+     * the current tick for new timeouts, the next one for timeouts re-armed while
+     * the current bucket is being expired.
+     */
+    private void insert(Timeout timeout, long firstTick) {
+        long deadlineTick = timeout.deadline / tickNanos;
+        long targetTick = Math.max(deadlineTick, firstTick);
+        timeout.remainingRounds = (targetTick - firstTick) / wheel.length;
+        wheel[(int) (targetTick & mask)].add(timeout);
+    }
+
+    private void expire(Bucket bucket, long now) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.state != Timeout.ACTIVE) {
+                bucket.remove(timeout);
+            } else if (timeout.remainingRounds <= 0) {
+                bucket.remove(timeout);
+                dispatch(timeout);
+                rearmed.add(timeout);
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+
+        // Re-insert after the pass so a node landing in the same bucket is not visited twice
+        while ((timeout = rearmed.poll()) != null) {
+            rearm(timeout, now);
+        }
+    }
+
+    private void dispatch(Timeout timeout) {
+        TimerTask task = timeout.task;
+        long scheduledNanoTime = startNanos + timeout.deadline;
+        try {
+            dispatcher.execute(() -> task.run(scheduledNanoTime));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Timing wheel dispatch rejected: {}", e.getMessage());
+        }
+    }
+
+    private void rearm(Timeout timeout, long now) {
+        if (timeout.state != Timeout.ACTIVE) {
+            return;
+        }
+        do {
+            timeout.deadline += timeout.periodNanos;
+        } while (timeout.deadline <= now);
+        // The current bucket has already been expired: count rotations from the next tick
+        insert(timeout, tick + 1);
+    }
+
+    /**
+     * Task fired by the wheel on the dispatch executor.
+     * {@code scheduledNanoTime} is the planned {@link System#nanoTime()} of this run,
+     * so callers can measure how late the run actually started.
+     */
+    @FunctionalInterface
+    public interface TimerTask {
+        void run(long scheduledNanoTime);
+    }
+
+    /**
+     * Handle of a scheduled task; also the node stored in the wheel bucket.
+     */
+    public final class Timeout {
+        private static final int ACTIVE = 0;
+        private static final int CANCELLED = 1;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimerTask task;
+        private final long periodNanos;
+        private volatile int state = ACTIVE;
+
+        // Owned by the tick thread
+        private long deadline;
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimerTask task, long deadline, long periodNanos) {
+            this.task = task;
+            this.deadline = deadline;
+            this.periodNanos = periodNanos;
+        }
+
+        /** O(1): mark cancelled; the tick thread unlinks the node on its next tick. */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, ACTIVE, CANCELLED)) {
+                return false;
+            }
+            pendingCancels.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
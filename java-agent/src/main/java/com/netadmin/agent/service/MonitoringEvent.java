@@ -0,0 +1,73 @@
+package com.netadmin.agent.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.netadmin.agent.probe.ProbeType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Structured monitoring config event published on {@code netadmin_events}.
+ *
+ * <pre>
+ * {"v":1, "type":"MONITORING", "op":"UPSERT", "seq":42,
+ *  "ids":[7], "targets":[{"id":7, "name":"...", "hostname":"...", "interval_seconds":60,
+ *                         "is_active":true, "probe_type":"TCP", "probe_port":22, "probe_path":null}]}
+ * </pre>
+ *
+ * {@code op} is UPSERT, DELETE or RESYNC. {@code seq} increases by one per event
+ * (0 when the publisher does not track it); a gap means events were missed.
+ * UPSERT may carry full {@code targets} or only {@code ids} to be re-read.
+ */
+record MonitoringEvent(Op op, long seq, List<Long> ids, List<TargetSpec> upserts, List<Long> deactivated) {
+
+    static final String TYPE = "MONITORING";
+    static final int VERSION = 1;
+
+    enum Op {
+        UPSERT,
+        DELETE,
+        RESYNC
+    }
+
+    static MonitoringEvent parse(JsonNode root) {
+        if (root.path("v").asInt(VERSION) > VERSION) {
+            throw new IllegalArgumentException("Unsupported event version " + root.path("v").asInt());
+        }
+        Op op = Op.valueOf(root.path("op").asText("RESYNC").toUpperCase());
+        long seq = root.path("seq").asLong(0);
+
+        List<Long> ids = new ArrayList<>();
+        root.path("ids").forEach(id -> ids.add(id.asLong()));
+
+        List<TargetSpec> upserts = new ArrayList<>();
+        List<Long> deactivated = new ArrayList<>();
+        for (JsonNode target : root.path("targets")) {
+            TargetSpec spec = toSpec(target);
+            if (target.path("is_active").asBoolean(true)) {
+                upserts.add(spec);
+            } else {
+                deactivated.add(spec.id());
+            }
+        }
+        return new MonitoringEvent(op, seq, ids, upserts, deactivated);
+    }
+
+    private static TargetSpec toSpec(JsonNode target) {
+        if (!target.hasNonNull("id")) {
+            throw new IllegalArgumentException("Target payload without id: " + target);
+        }
+        return new TargetSpec(
+                target.path("id").asLong(),
+                target.path("name").asText(null),
+                target.path("hostname").asText(null),
+                target.path("interval_seconds").asInt(0),
+                ProbeType.parse(target.path("probe_type").asText(null)),
+                target.hasNonNull("probe_port") ? target.path("probe_port").asInt() : null,
+                target.path("probe_path").asText(null));
+    }
+
+    boolean hasPayload() {
+        return !upserts.isEmpty() || !deactivated.isEmpty();
+    }
+}
@@ -1,33 +1,56 @@
 package com.netadmin.agent.service;
 
+import com.netadmin.agent.probe.ProbeRegistry;
+import com.netadmin.agent.probe.ProbeRequest;
+import com.netadmin.agent.probe.ProbeResult;
+import com.netadmin.agent.probe.ProbeType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Network utility service for host availability checks.
- * Provides robust ping functionality with fallback mechanisms.
+ * Thin facade over the probe engines: single checks, TCP checks,
+ * concurrent batches with bounded parallelism and a global deadline,
+ * and streaming batches that emit each result as it arrives.
  */
 @Service
 public class NetworkService {
 
     private static final Logger logger = LoggerFactory.getLogger(NetworkService.class);
     private static final int PING_TIMEOUT_MS = 3000;
-    private static final String OS_NAME = System.getProperty("os.name").toLowerCase();
+
+    private final ProbeRegistry probeRegistry;
+    private final int batchParallelism;
+    private final Duration batchDeadline;
+
+    public NetworkService(
+            ProbeRegistry probeRegistry,
+            @Value("${app.monitoring.batch.parallelism:256}") int batchParallelism,
+            @Value("${app.monitoring.batch.deadline-ms:10000}") long batchDeadlineMs) {
+        this.probeRegistry = probeRegistry;
+        this.batchParallelism = Math.max(1, batchParallelism);
+        this.batchDeadline = Duration.ofMillis(batchDeadlineMs);
+    }
 
     /**
-     * Ping a host using multi-method approach for reliability.
-     * 
-     * Strategy:
-     * 1. Try Java InetAddress.isReachable() (fast but sometimes unreliable)
-     * 2. If inconclusive, fallback to system ping command
-     * 
+     * Ping a host with ICMP echo.
+     * Uses the in-process echo engine, falling back to isReachable/system ping
+     * only when ping sockets are unavailable.
+     *
      * @param hostname IP address or hostname
      * @return true if host is reachable, false otherwise
      */
@@ -40,116 +63,152 @@ public class NetworkService {
         hostname = hostname.trim();
         logger.debug("Pinging host: {}", hostname);
 
-        // Method 1: InetAddress (quick check)
-        boolean javaReachable = pingViaJava(hostname);
-        
-        if (javaReachable) {
-            logger.debug("Host {} is reachable (Java method)", hostname);
+        ProbeResult result = probeRegistry.probe(ProbeRequest.icmp(hostname, Duration.ofMillis(PING_TIMEOUT_MS))).join();
+        if (result.isUp()) {
+            logger.debug("Host {} is reachable (rtt={}us)", hostname, result.rttMicros());
             return true;
         }
 
-        // Method 2: System ping (more reliable, but slower)
-        logger.debug("Java ping failed for {}, trying system ping...", hostname);
-        boolean systemReachable = pingViaSystem(hostname);
-        
-        if (systemReachable) {
-            logger.debug("Host {} is reachable (System ping)", hostname);
+        logger.debug("Host {} is NOT reachable: {}", hostname, result.errorCode());
+        return false;
+    }
+
+    /**
+     * Check a TCP service by completing a handshake with host:port.
+     * Works for hosts that drop ICMP; the connect runs on the shared selector,
+     * the calling thread only waits for the result.
+     *
+     * @param hostname IP address or hostname
+     * @param port TCP port
+     * @return true if the handshake completed within PING_TIMEOUT_MS
+     */
+    public boolean tcpPing(String hostname, int port) {
+        if (hostname == null || hostname.trim().isEmpty()) {
+            logger.warn("TCP ping called with empty hostname");
+            return false;
+        }
+
+        hostname = hostname.trim();
+        ProbeRequest request = new ProbeRequest(ProbeType.TCP, hostname, port, null, Duration.ofMillis(PING_TIMEOUT_MS));
+        ProbeResult result = probeRegistry.probe(request).join();
+        if (result.isUp()) {
+            logger.debug("Host {}:{} accepted TCP connect (rtt={}us)", hostname, port, result.rttMicros());
             return true;
         }
 
-        logger.debug("Host {} is NOT reachable (all methods failed)", hostname);
+        logger.debug("TCP connect to {}:{} failed: {}", hostname, port, result.errorCode());
         return false;
     }
 
     /**
-     * Ping using Java InetAddress.isReachable().
-     * Fast but may fail due to firewall/ICMP restrictions.
+     * Batch ping multiple hosts concurrently.
+     * Useful for monitoring large networks.
+     *
+     * @param hostnames Array of hostnames/IPs
+     * @return Array of boolean results (same order as input)
      */
-    private boolean pingViaJava(String hostname) {
-        try {
-            InetAddress address = InetAddress.getByName(hostname);
-            boolean reachable = address.isReachable(PING_TIMEOUT_MS);
-            logger.trace("InetAddress.isReachable({}) = {}", hostname, reachable);
-            return reachable;
-        } catch (Exception e) {
-            logger.trace("Java ping failed for {}: {}", hostname, e.getMessage());
-            return false;
+    public boolean[] pingBatch(String[] hostnames) {
+        List<ProbeRequest> requests = new ArrayList<>(hostnames.length);
+        for (String hostname : hostnames) {
+            String host = hostname != null ? hostname.trim() : "";
+            requests.add(ProbeRequest.icmp(host, Duration.ofMillis(PING_TIMEOUT_MS)));
+        }
+
+        List<ProbeResult> results = probeBatch(requests);
+        boolean[] reachable = new boolean[hostnames.length];
+        for (int i = 0; i < reachable.length; i++) {
+            reachable[i] = results.get(i).isUp();
         }
+        return reachable;
     }
 
     /**
-     * Ping using system command (ping utility).
-     * More reliable but requires external process.
+     * Probe a batch concurrently using the configured parallelism cap and deadline.
      */
-    private boolean pingViaSystem(String hostname) {
-        try {
-            // Build platform-specific ping command
-            ProcessBuilder processBuilder;
-            
-            if (OS_NAME.contains("win")) {
-                // Windows: ping -n 1 -w 3000 hostname
-                processBuilder = new ProcessBuilder("ping", "-n", "1", "-w", String.valueOf(PING_TIMEOUT_MS), hostname);
-            } else {
-                // Linux/Unix: ping -c 1 -W 3 hostname
-                int timeoutSeconds = PING_TIMEOUT_MS / 1000;
-                processBuilder = new ProcessBuilder("ping", "-c", "1", "-W", String.valueOf(timeoutSeconds), hostname);
-            }
+    public List<ProbeResult> probeBatch(List<ProbeRequest> requests) {
+        return probeBatch(requests, batchParallelism, batchDeadline);
+    }
 
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
+    /**
+     * Probe a batch concurrently.
+     *
+     * At most {@code parallelism} probes are in flight at once. When {@code deadline}
+     * expires the call returns immediately: probes still running or never started
+     * are reported as TIMEOUT. Per-probe timeouts are clamped to the time left.
+     *
+     * @return one result per request, same order as input
+     */
+    public List<ProbeResult> probeBatch(List<ProbeRequest> requests, int parallelism, Duration deadline) {
+        int size = requests.size();
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        AtomicReferenceArray<ProbeResult> results = new AtomicReferenceArray<>(size);
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        List<CompletableFuture<ProbeResult>> inFlight = new ArrayList<>(size);
+
+        int started = 0;
+        try {
+            for (; started < size; started++) {
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                if (remainingNanos <= 0 || !permits.tryAcquire(remainingNanos, TimeUnit.NANOSECONDS)) {
+                    break;
+                }
 
-            // Wait for completion with timeout
-            boolean finished = process.waitFor(PING_TIMEOUT_MS + 1000, TimeUnit.MILLISECONDS);
-            
-            if (!finished) {
-                logger.warn("System ping timeout for {}", hostname);
-                process.destroyForcibly();
-                return false;
+                int index = started;
+                ProbeRequest request = clampTimeout(requests.get(index), deadlineNanos);
+                inFlight.add(probeRegistry.probe(request).whenComplete((result, error) -> {
+                    results.set(index, result != null ? result : ProbeResult.fromFailure(request, error));
+                    permits.release();
+                }));
             }
 
-            int exitCode = process.exitValue();
-            
-            // Read output for debugging
-            if (logger.isTraceEnabled()) {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                    String output = reader.lines().reduce("", (a, b) -> a + "\n" + b);
-                    logger.trace("Ping output for {}: {}", hostname, output);
-                }
+            long remainingNanos = deadlineNanos - System.nanoTime();
+            if (remainingNanos > 0) {
+                CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new))
+                        .get(remainingNanos, TimeUnit.NANOSECONDS);
             }
-
-            // Exit code 0 means success
-            boolean success = (exitCode == 0);
-            logger.trace("System ping {} exit code: {} (success={})", hostname, exitCode, success);
-            return success;
-
-        } catch (IOException e) {
-            logger.error("IO error during system ping for {}: {}", hostname, e.getMessage());
-            return false;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            logger.error("System ping interrupted for {}: {}", hostname, e.getMessage());
-            return false;
-        } catch (Exception e) {
-            logger.error("Unexpected error during system ping for {}: {}", hostname, e.getMessage());
-            return false;
+        } catch (TimeoutException | ExecutionException e) {
+            // Deadline reached: unfinished probes are reported as TIMEOUT below
         }
+
+        List<ProbeResult> ordered = new ArrayList<>(size);
+        int timedOut = 0;
+        for (int i = 0; i < size; i++) {
+            ProbeResult result = results.get(i);
+            if (result == null) {
+                result = ProbeResult.timeout(requests.get(i));
+                timedOut++;
+            }
+            ordered.add(result);
+        }
+
+        if (timedOut > 0) {
+            logger.warn("Batch deadline {}ms reached: {}/{} probes unfinished ({} never started)",
+                    deadline.toMillis(), timedOut, size, size - started);
+        }
+        return ordered;
     }
 
     /**
-     * Batch ping multiple hosts concurrently.
-     * Useful for monitoring large networks.
-     * 
-     * @param hostnames Array of hostnames/IPs
-     * @return Array of boolean results (same order as input)
+     * Stream probe results as they arrive instead of waiting for the slowest host.
+     *
+     * The publisher is cold: each subscriber triggers its own run. Probes are only
+     * launched within the subscriber's outstanding demand (capped by the batch
+     * parallelism), so a slow consumer slows probing down instead of buffering.
+     * Results are emitted in completion order; use {@link ProbeResult#hostname()}
+     * to correlate.
      */
-    public boolean[] pingBatch(String[] hostnames) {
-        boolean[] results = new boolean[hostnames.length];
-        
-        for (int i = 0; i < hostnames.length; i++) {
-            results[i] = ping(hostnames[i]);
+    public Flow.Publisher<ProbeResult> probeStream(List<ProbeRequest> requests) {
+        return new ProbeResultPublisher(probeRegistry, requests, batchParallelism);
+    }
+
+    private static ProbeRequest clampTimeout(ProbeRequest request, long deadlineNanos) {
+        Duration remaining = Duration.ofNanos(Math.max(1, deadlineNanos - System.nanoTime()));
+        if (request.timeout().compareTo(remaining) <= 0) {
+            return request;
         }
-        
-        return results;
+        return new ProbeRequest(request.type(), request.hostname(), request.port(), request.path(), remaining);
     }
 
     /**
@@ -166,4 +225,3 @@ public class NetworkService {
         }
     }
 }
-
@@ -0,0 +1,94 @@
+package com.netadmin.agent.service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Schedule changes requested since the last reconciliation, merged per target.
+ *
+ * Later requests for the same target win (an upsert after a removal
+ * re-adds the target and vice versa). A full resync subsumes every targeted
+ * change, because it reads the database after all of them were committed.
+ *
+ * Not thread-safe: guarded by the owner's lock.
+ */
+final class PendingScheduleChanges {
+
+    private boolean resync;
+    private final Map<Long, TargetSpec> upserts = new LinkedHashMap<>();
+    private final Set<Long> removals = new LinkedHashSet<>();
+    private final Set<Long> reloads = new LinkedHashSet<>();
+    private int requests;
+
+    void resync() {
+        resync = true;
+        upserts.clear();
+        removals.clear();
+        reloads.clear();
+        requests++;
+    }
+
+    void upsert(Collection<TargetSpec> specs) {
+        requests++;
+        if (resync) {
+            return;
+        }
+        for (TargetSpec spec : specs) {
+            removals.remove(spec.id());
+            reloads.remove(spec.id());
+            upserts.put(spec.id(), spec);
+        }
+    }
+
+    void remove(Collection<Long> targetIds) {
+        requests++;
+        if (resync) {
+            return;
+        }
+        for (Long targetId : targetIds) {
+            upserts.remove(targetId);
+            reloads.remove(targetId);
+            removals.add(targetId);
+        }
+    }
+
+    void reload(Collection<Long> targetIds) {
+        requests++;
+        if (resync) {
+            return;
+        }
+        for (Long targetId : targetIds) {
+            upserts.remove(targetId);
+            removals.remove(targetId);
+            reloads.add(targetId);
+        }
+    }
+
+    boolean isEmpty() {
+        return requests == 0;
+    }
+
+    boolean isResync() {
+        return resync;
+    }
+
+    Collection<TargetSpec> upserts() {
+        return upserts.values();
+    }
+
+    Set<Long> removals() {
+        return removals;
+    }
+
+    Set<Long> reloads() {
+        return reloads;
+    }
+
+    /** Number of refresh requests merged into this batch. */
+    int requests() {
+        return requests;
+    }
+}
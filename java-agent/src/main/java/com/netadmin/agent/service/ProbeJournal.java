@@ -0,0 +1,299 @@
+package com.netadmin.agent.service;
+
+import com.netadmin.agent.probe.ProbeStatus;
+import com.netadmin.agent.probe.ProbeType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size ring journal of probe results on local disk.
+ *
+ * The ring is split into {@code segment-count} files of {@code segment-records}
+ * fixed-width records each, every file mapped once with {@link FileChannel#map}.
+ * Record {@code seq} lives in slot {@code seq % capacity}; when the ring is
+ * full the oldest records are overwritten.
+ *
+ * Record layout (32 bytes, native byte order):
+ * <pre>
+ *  0  long  commit marker (seq + 1, 0 = empty or being written)
+ *  8  long  target id
+ * 16  long  check time, epoch microseconds
+ * 24  int   rtt in microseconds, -1 when there was no answer
+ * 28  byte  ProbeStatus ordinal
+ * 29  byte  ProbeType ordinal
+ * 30  short reserved
+ * </pre>
+ *
+ * A separate header file holds the replay watermark: the first seq not yet
+ * confirmed in the database. On startup the write position is recovered
+ * from the highest commit marker, so both the backlog and recent history
+ * survive a restart.
+ *
+ * Thread Safety:
+ * - Writers reserve a seq with one atomic increment and write with absolute
+ *   puts; {@link #append} allocates nothing
+ * - The commit marker is cleared before and published (release) after the
+ *   payload, and readers re-check it after reading, seqlock-style, so a slot
+ *   being overwritten is never returned as a torn record
+ */
+@Component
+public class ProbeJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProbeJournal.class);
+
+    static final int RECORD_SIZE = 32;
+    private static final int OFF_MARKER = 0;
+    private static final int OFF_TARGET = 8;
+    private static final int OFF_TIME = 16;
+    private static final int OFF_RTT = 24;
+    private static final int OFF_STATUS = 28;
+    private static final int OFF_TYPE = 29;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final ProbeStatus[] STATUSES = ProbeStatus.values();
+    private static final ProbeType[] TYPES = ProbeType.values();
+    // Records are appended roughly in check-time order; concurrent checks
+    // finishing at different speeds can be out of order by up to a probe timeout
+    private static final long ORDER_SLACK_MICROS = 60_000_000L;
+
+    private final Path directory;
+    private final int segmentCount;
+    private final int segmentRecords;
+    private final long capacity;
+    private final AtomicLong writeSeq = new AtomicLong();
+    private MappedByteBuffer[] segments;
+    private MappedByteBuffer header;
+
+    public ProbeJournal(
+            @Value("${app.monitoring.journal.dir:/app/data/journal}") String directory,
+            @Value("${app.monitoring.journal.segment-count:8}") int segmentCount,
+            @Value("${app.monitoring.journal.segment-records:131072}") int segmentRecords) {
+        this.directory = Path.of(directory);
+        this.segmentCount = Math.max(1, segmentCount);
+        // Keep one segment below the 2 GB mapping limit
+        this.segmentRecords = Math.max(1024, Math.min(segmentRecords, Integer.MAX_VALUE / RECORD_SIZE));
+        this.capacity = (long) this.segmentCount * this.segmentRecords;
+    }
+
+    /**
+     * One committed journal record.
+     */
+    public record Entry(long seq, long targetId, Instant checkedAt, int rttMicros,
+                        ProbeStatus status, ProbeType type) {
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = map(directory.resolve(String.format("segment-%02d.dat", i)),
+                    (long) segmentRecords * RECORD_SIZE);
+        }
+        header = map(directory.resolve("header.dat"), Long.BYTES);
+
+        writeSeq.set(recoverWriteSeq());
+        long replay = Math.max(replaySeq(), oldestAvailable());
+        setReplaySeq(Math.min(replay, writeSeq.get()));
+        logger.info("🗂️ Probe journal ready: {} records in {} segments, write seq {}, replay backlog {}",
+                capacity, segmentCount, writeSeq.get(), backlog());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (segments == null) {
+            return;
+        }
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+    }
+
+    /**
+     * Append one probe result. Allocation-free; never blocks.
+     *
+     * @return the seq assigned to the record
+     */
+    public long append(long targetId, long checkedAtMicros, int rttMicros, ProbeStatus status, ProbeType type) {
+        long seq = writeSeq.getAndIncrement();
+        MappedByteBuffer segment = segmentFor(seq);
+        int offset = offsetFor(seq);
+
+        LONGS.setOpaque(segment, offset + OFF_MARKER, 0L);
+        VarHandle.storeStoreFence();
+        segment.putLong(offset + OFF_TARGET, targetId);
+        segment.putLong(offset + OFF_TIME, checkedAtMicros);
+        segment.putInt(offset + OFF_RTT, rttMicros);
+        segment.put(offset + OFF_STATUS, (byte) status.ordinal());
+        segment.put(offset + OFF_TYPE, (byte) type.ordinal());
+        LONGS.setRelease(segment, offset + OFF_MARKER, seq + 1);
+        return seq;
+    }
+
+    /**
+     * Read the record with the given seq, or null if it was overwritten,
+     * is not written yet, or is being written right now.
+     */
+    public Entry read(long seq) {
+        if (seq < 0) {
+            return null;
+        }
+        MappedByteBuffer segment = segmentFor(seq);
+        int offset = offsetFor(seq);
+
+        long marker = (long) LONGS.getAcquire(segment, offset + OFF_MARKER);
+        if (marker != seq + 1) {
+            return null;
+        }
+        long targetId = segment.getLong(offset + OFF_TARGET);
+        long micros = segment.getLong(offset + OFF_TIME);
+        int rtt = segment.getInt(offset + OFF_RTT);
+        int status = segment.get(offset + OFF_STATUS);
+        int type = segment.get(offset + OFF_TYPE);
+        VarHandle.loadLoadFence();
+        if ((long) LONGS.getOpaque(segment, offset + OFF_MARKER) != marker
+                || status < 0 || status >= STATUSES.length || type < 0 || type >= TYPES.length) {
+            return null;
+        }
+        Instant checkedAt = Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1000L);
+        return new Entry(seq, targetId, checkedAt, rtt, STATUSES[status], TYPES[type]);
+    }
+
+    /**
+     * True if {@code seq} was reserved but its record is not committed yet
+     * (as opposed to already overwritten by a later lap of the ring).
+     */
+    public boolean isPending(long seq) {
+        return seq < writeSeq.get() && seq >= oldestAvailable()
+                && (long) LONGS.getAcquire(segmentFor(seq), offsetFor(seq) + OFF_MARKER) != seq + 1;
+    }
+
+    /** Next seq to be written. */
+    public long writeSeq() {
+        return writeSeq.get();
+    }
+
+    /** Oldest seq that can still be in the ring. */
+    public long oldestAvailable() {
+        return Math.max(0, writeSeq.get() - capacity);
+    }
+
+    /** First seq not yet confirmed in the database. */
+    public long replaySeq() {
+        return (long) LONGS.getAcquire(header, 0);
+    }
+
+    /** Mark everything below {@code seq} as safely stored in the database. */
+    public void setReplaySeq(long seq) {
+        LONGS.setRelease(header, 0, seq);
+    }
+
+    /** Records written but not yet confirmed in the database. */
+    public long backlog() {
+        return writeSeq.get() - replaySeq();
+    }
+
+    /**
+     * Most recent records of one target, newest first, without touching the database.
+     * Scans backwards from the write position; stops after {@code limit} hits, at
+     * the first record of the target older than {@code since}, or at the first
+     * record of any target older than {@code since} by more than the ordering
+     * slack, so a target with few records does not cost a scan of the whole ring.
+     */
+    public List<Entry> recent(long targetId, Instant since, int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, 256));
+        long oldest = oldestAvailable();
+        long stopMicros = since == null ? Long.MIN_VALUE
+                : since.getEpochSecond() * 1_000_000L + since.getNano() / 1000 - ORDER_SLACK_MICROS;
+        for (long seq = writeSeq.get() - 1; seq >= oldest && result.size() < limit; seq--) {
+            if (targetIdAt(seq) != targetId) {
+                if (since != null && checkedAtMicros(seq) < stopMicros) {
+                    break;
+                }
+                continue;
+            }
+            Entry entry = read(seq);
+            if (entry == null) {
+                continue;
+            }
+            if (since != null && entry.checkedAt().isBefore(since)) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Check time of a committed record without building an {@link Entry};
+     * {@link Long#MAX_VALUE} if the slot is not committed for {@code seq}.
+     */
+    private long checkedAtMicros(long seq) {
+        MappedByteBuffer segment = segmentFor(seq);
+        int offset = offsetFor(seq);
+        long marker = (long) LONGS.getAcquire(segment, offset + OFF_MARKER);
+        if (marker != seq + 1) {
+            return Long.MAX_VALUE;
+        }
+        long micros = segment.getLong(offset + OFF_TIME);
+        VarHandle.loadLoadFence();
+        return (long) LONGS.getOpaque(segment, offset + OFF_MARKER) == marker ? micros : Long.MAX_VALUE;
+    }
+
+    /** Cheap pre-filter for scans: target id without validating the record. */
+    private long targetIdAt(long seq) {
+        return segmentFor(seq).getLong(offsetFor(seq) + OFF_TARGET);
+    }
+
+    private MappedByteBuffer segmentFor(long seq) {
+        return segments[(int) ((seq % capacity) / segmentRecords)];
+    }
+
+    private int offsetFor(long seq) {
+        return (int) ((seq % capacity) % segmentRecords) * RECORD_SIZE;
+    }
+
+    /** Highest committed marker in the ring, i.e. the next seq to write. */
+    private long recoverWriteSeq() {
+        long next = 0;
+        for (MappedByteBuffer segment : segments) {
+            for (int offset = 0; offset < segment.capacity(); offset += RECORD_SIZE) {
+                next = Math.max(next, segment.getLong(offset + OFF_MARKER));
+            }
+        }
+        return next;
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.nativeOrder());
+            return buffer;
+        }
+    }
+}
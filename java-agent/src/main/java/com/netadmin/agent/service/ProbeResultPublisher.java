@@ -0,0 +1,145 @@
+package com.netadmin.agent.service;
+
+import com.netadmin.agent.probe.ProbeRegistry;
+import com.netadmin.agent.probe.ProbeRequest;
+import com.netadmin.agent.probe.ProbeResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cold publisher that probes a fixed list of requests and emits each result as
+ * soon as it completes (completion order, not input order).
+ *
+ * Backpressure is end-to-end: a probe is only launched while the number of
+ * probes in flight plus results waiting for delivery is below both the
+ * subscriber's outstanding demand and the parallelism cap, so nothing is
+ * buffered beyond what the subscriber asked for.
+ */
+final class ProbeResultPublisher implements Flow.Publisher<ProbeResult> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProbeResultPublisher.class);
+
+    private final ProbeRegistry probeRegistry;
+    private final List<ProbeRequest> requests;
+    private final int parallelism;
+
+    ProbeResultPublisher(ProbeRegistry probeRegistry, List<ProbeRequest> requests, int parallelism) {
+        this.probeRegistry = probeRegistry;
+        this.requests = List.copyOf(requests);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ProbeResult> subscriber) {
+        ProbeSubscription subscription = new ProbeSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+    }
+
+    private final class ProbeSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ProbeResult> subscriber;
+        private final Queue<ProbeResult> ready = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger readyCount = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private int nextIndex;
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private boolean done;
+
+        private ProbeSubscription(Flow.Subscriber<? super ProbeResult> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Subscription request must be positive: " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Serialized emission/launch loop: whichever thread gets wip from 0 does
+         * the work, concurrent callers just bump wip so the loop runs again.
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (done || cancelled) {
+                    ready.clear();
+                    continue;
+                }
+                if (invalidRequest != null) {
+                    done = true;
+                    subscriber.onError(invalidRequest);
+                    continue;
+                }
+
+                emitReady();
+                launchWithinDemand();
+
+                if (!done && !cancelled && nextIndex == requests.size()
+                        && inFlight.get() == 0 && readyCount.get() == 0) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private void emitReady() {
+            while (demand.get() > 0 && !cancelled) {
+                ProbeResult result = ready.poll();
+                if (result == null) {
+                    return;
+                }
+                readyCount.decrementAndGet();
+                if (demand.get() != Long.MAX_VALUE) {
+                    demand.decrementAndGet();
+                }
+                try {
+                    subscriber.onNext(result);
+                } catch (Throwable e) {
+                    logger.error("Probe stream subscriber failed, cancelling: {}", e.getMessage(), e);
+                    cancelled = true;
+                }
+            }
+        }
+
+        private void launchWithinDemand() {
+            while (!cancelled && nextIndex < requests.size()) {
+                long pending = (long) inFlight.get() + readyCount.get();
+                if (pending >= Math.min(demand.get(), parallelism)) {
+                    return;
+                }
+                ProbeRequest request = requests.get(nextIndex++);
+                inFlight.incrementAndGet();
+                probeRegistry.probe(request).whenComplete((result, error) -> {
+                    ready.add(result != null ? result : ProbeResult.fromFailure(request, error));
+                    readyCount.incrementAndGet();
+                    inFlight.decrementAndGet();
+                    drain();
+                });
+            }
+        }
+    }
+}
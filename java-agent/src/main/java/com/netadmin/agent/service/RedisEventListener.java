@@ -1,24 +1,95 @@
 package com.netadmin.agent.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
+/**
+ * Handles config events from the admin panel on {@code netadmin_events}.
+ *
+ * Structured JSON events ({@link MonitoringEvent}) are applied per target with no
+ * full reload; the legacy bare {@code CONFIG_UPDATE:MONITORING} string, an explicit
+ * RESYNC, or a gap in the event sequence trigger a full resync from the database.
+ * Monitoring and {@code ALERT_ROUTING} events also invalidate {@link AlertRouting}.
+ */
 @Service
 public class RedisEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(RedisEventListener.class);
+    private static final String LEGACY_MONITORING_UPDATE = "CONFIG_UPDATE:MONITORING";
+    private static final String ALERT_ROUTING_TYPE = "ALERT_ROUTING";
+
     private final DynamicSchedulerService schedulerService;
+    private final AlertRouting alertRouting;
+    private final ObjectMapper objectMapper;
+    private long lastSeq;
 
-    public RedisEventListener(DynamicSchedulerService schedulerService) {
+    public RedisEventListener(DynamicSchedulerService schedulerService, AlertRouting alertRouting,
+                              ObjectMapper objectMapper) {
         this.schedulerService = schedulerService;
+        this.alertRouting = alertRouting;
+        this.objectMapper = objectMapper;
     }
 
     public void handleMessage(String message) {
         logger.info("Received Redis event: {}", message);
         
-        if ("CONFIG_UPDATE:MONITORING".equals(message)) {
+        if (LEGACY_MONITORING_UPDATE.equals(message)) {
+            schedulerService.refreshSchedule();
+            alertRouting.invalidate();
+            return;
+        }
+        if (message == null || !message.startsWith("{")) {
+            return;
+        }
+
+        try {
+            JsonNode root = objectMapper.readTree(message);
+            String type = root.path("type").asText();
+            if (MonitoringEvent.TYPE.equals(type)) {
+                // Targets may have moved between groups or changed their topic
+                alertRouting.invalidate();
+                handleMonitoringEvent(MonitoringEvent.parse(root));
+            } else if (ALERT_ROUTING_TYPE.equals(type)) {
+                alertRouting.invalidate();
+            }
+        } catch (Exception e) {
+            logger.error("Invalid monitoring event, falling back to full resync: {}", e.getMessage());
+            schedulerService.refreshSchedule();
+            alertRouting.invalidate();
+        }
+    }
+
+    /**
+     * Synchronized: the listener container may deliver messages on concurrent
+     * threads, and sequence tracking must see events one at a time.
+     */
+    private synchronized void handleMonitoringEvent(MonitoringEvent event) {
+        boolean gap = event.seq() > 0 && lastSeq > 0 && event.seq() != lastSeq + 1;
+        if (event.seq() > 0) {
+            lastSeq = event.seq();
+        }
+
+        if (gap) {
+            logger.warn("Monitoring event sequence gap detected (got {}), resyncing", event.seq());
             schedulerService.refreshSchedule();
+            return;
+        }
+
+        switch (event.op()) {
+            case RESYNC -> schedulerService.refreshSchedule();
+            case DELETE -> schedulerService.applyChanges(List.of(), event.ids());
+            case UPSERT -> {
+                if (event.hasPayload()) {
+                    schedulerService.applyChanges(event.upserts(), event.deactivated());
+                } else {
+                    schedulerService.reloadTargets(event.ids());
+                }
+            }
         }
     }
 }
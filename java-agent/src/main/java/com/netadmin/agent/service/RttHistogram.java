@@ -0,0 +1,195 @@
+package com.netadmin.agent.service;
+
+import java.util.Arrays;
+
+/**
+ * Bounded-memory sliding-window RTT histogram of one target.
+ *
+ * Values are bucketed log-linearly like HdrHistogram: exact below 16us, then
+ * 16 linear sub-buckets per power of two, so any recorded value is off by at
+ * most 1/16 (6.25%). RTTs are capped at 2^26us (~67s), which gives 368
+ * buckets. The window is a ring of one-minute slices; a slice is cleared when
+ * the ring comes back around to it.
+ *
+ * A slice is allocated on its first sample and starts sparse: one int per
+ * distinct bucket (bucket index and 16-bit count). A target probed a few
+ * times a minute touches only a handful of buckets, so it costs
+ * about 1 KB for a 15 minute window. Only a slice spreading over more than
+ * {@code SPARSE_LIMIT} buckets switches to a dense array of 368 counters,
+ * capping a busy target at about 11 KB for 15 minutes however many samples
+ * are recorded.
+ *
+ * Not thread-safe: callers serialize access per target.
+ */
+final class RttHistogram {
+
+    static final long SLICE_MILLIS = 60_000;
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 25;
+    static final long MAX_TRACKABLE_MICROS = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    // Past this many distinct buckets a sparse slice costs about as much as a dense one
+    private static final int SPARSE_LIMIT = 64;
+    private static final int COUNT_MASK = 0xFFFF;
+
+    private final int slices;
+    private final long[] sliceIds;
+    private final long[] sliceMax;
+    // Per slot: sparse entries (bucket << 16 | count) and how many are used,
+    // or a dense counter array once the slice outgrew SPARSE_LIMIT
+    private final int[][] sparse;
+    private final int[] sparseSize;
+    private final char[][] dense;
+
+    RttHistogram(int slices) {
+        this.slices = slices;
+        this.sliceIds = new long[slices];
+        this.sliceMax = new long[slices];
+        this.sparse = new int[slices][];
+        this.sparseSize = new int[slices];
+        this.dense = new char[slices][];
+        Arrays.fill(sliceIds, -1);
+    }
+
+    /**
+     * Latency percentiles of one window, all in microseconds.
+     */
+    record Snapshot(long samples, long p50Micros, long p95Micros, long p99Micros, long maxMicros) {
+        static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0);
+    }
+
+    void record(long rttMicros, long nowMillis) {
+        long sliceId = nowMillis / SLICE_MILLIS;
+        int slot = (int) Math.floorMod(sliceId, (long) slices);
+        if (sliceIds[slot] != sliceId) {
+            // Arrays are kept for reuse: a target keeps roughly the same spread minute to minute
+            sparseSize[slot] = 0;
+            if (dense[slot] != null) {
+                Arrays.fill(dense[slot], (char) 0);
+            }
+            sliceIds[slot] = sliceId;
+            sliceMax[slot] = 0;
+        }
+
+        long value = Math.max(0, Math.min(rttMicros, MAX_TRACKABLE_MICROS));
+        increment(slot, bucketIndex(value));
+        sliceMax[slot] = Math.max(sliceMax[slot], value);
+    }
+
+    private void increment(int slot, int bucket) {
+        char[] counters = dense[slot];
+        if (counters != null) {
+            if (counters[bucket] != Character.MAX_VALUE) {
+                counters[bucket]++;
+            }
+            return;
+        }
+
+        int[] entries = sparse[slot];
+        int size = sparseSize[slot];
+        for (int i = 0; i < size; i++) {
+            if (entries[i] >>> 16 == bucket) {
+                if ((entries[i] & COUNT_MASK) != COUNT_MASK) {
+                    entries[i]++;
+                }
+                return;
+            }
+        }
+
+        if (size == SPARSE_LIMIT) {
+            counters = new char[BUCKETS];
+            for (int i = 0; i < size; i++) {
+                counters[entries[i] >>> 16] = (char) (entries[i] & COUNT_MASK);
+            }
+            counters[bucket] = 1;
+            dense[slot] = counters;
+            sparse[slot] = null;
+            sparseSize[slot] = 0;
+            return;
+        }
+        if (entries == null) {
+            entries = sparse[slot] = new int[4];
+        } else if (size == entries.length) {
+            entries = sparse[slot] = Arrays.copyOf(entries, Math.min(SPARSE_LIMIT, size * 2));
+        }
+        entries[size] = bucket << 16 | 1;
+        sparseSize[slot] = size + 1;
+    }
+
+    /**
+     * Merge the most recent {@code windowSlices} slices and compute percentiles.
+     */
+    Snapshot snapshot(int windowSlices, long nowMillis) {
+        long currentSlice = nowMillis / SLICE_MILLIS;
+        int window = Math.max(1, Math.min(windowSlices, slices));
+        int[] merged = new int[BUCKETS];
+        long total = 0;
+        long max = 0;
+        for (int k = 0; k < window; k++) {
+            long sliceId = currentSlice - k;
+            int slot = (int) Math.floorMod(sliceId, (long) slices);
+            if (sliceIds[slot] != sliceId) {
+                continue;
+            }
+            char[] counters = dense[slot];
+            if (counters != null) {
+                for (int b = 0; b < BUCKETS; b++) {
+                    merged[b] += counters[b];
+                    total += counters[b];
+                }
+            } else {
+                int[] entries = sparse[slot];
+                for (int i = 0; i < sparseSize[slot]; i++) {
+                    int count = entries[i] & COUNT_MASK;
+                    merged[entries[i] >>> 16] += count;
+                    total += count;
+                }
+            }
+            max = Math.max(max, sliceMax[slot]);
+        }
+        if (total == 0) {
+            return Snapshot.EMPTY;
+        }
+        return new Snapshot(total,
+                Math.min(max, percentile(merged, total, 0.50)),
+                Math.min(max, percentile(merged, total, 0.95)),
+                Math.min(max, percentile(merged, total, 0.99)),
+                max);
+    }
+
+    private static long percentile(int[] merged, long total, double quantile) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += merged[b];
+            if (seen >= rank) {
+                return bucketUpperValue(b);
+            }
+        }
+        return MAX_TRACKABLE_MICROS;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    /** Highest value that maps to the bucket. */
+    static long bucketUpperValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lower = (1L << (shift + SUB_BUCKET_BITS)) + ((long) subBucket << shift);
+        return lower + (1L << shift) - 1;
+    }
+}
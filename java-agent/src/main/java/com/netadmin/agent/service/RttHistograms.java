@@ -0,0 +1,82 @@
+package com.netadmin.agent.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-target RTT histograms ({@link RttHistogram}) over a sliding window of
+ * one-minute slices, for latency percentiles that a boolean UP/DOWN hides.
+ *
+ * Only answered probes are recorded; losses show up in rollups and history.
+ * Memory per target is bounded by {@code app.monitoring.histogram.window-minutes}
+ * and grows with how widely its RTTs spread, see {@link RttHistogram}.
+ */
+@Component
+public class RttHistograms {
+
+    private final int windowMinutes;
+    private final Map<Long, RttHistogram> histograms = new ConcurrentHashMap<>();
+
+    public RttHistograms(@Value("${app.monitoring.histogram.window-minutes:15}") int windowMinutes) {
+        this.windowMinutes = Math.max(1, Math.min(windowMinutes, 60));
+    }
+
+    /**
+     * Latency of one target over the last {@code windowMinutes} minutes, in microseconds.
+     */
+    public record Latency(long targetId, int windowMinutes, long samples,
+                          long p50Micros, long p95Micros, long p99Micros, long maxMicros) {
+    }
+
+    public int maxWindowMinutes() {
+        return windowMinutes;
+    }
+
+    void record(Long targetId, long rttMicros) {
+        if (rttMicros < 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        histograms.compute(targetId, (id, histogram) -> {
+            RttHistogram target = histogram != null ? histogram : new RttHistogram(windowMinutes);
+            target.record(rttMicros, now);
+            return target;
+        });
+    }
+
+    void remove(Long targetId) {
+        histograms.remove(targetId);
+    }
+
+    public Optional<Latency> latency(long targetId, int minutes) {
+        Latency[] result = new Latency[1];
+        long now = System.currentTimeMillis();
+        histograms.computeIfPresent(targetId, (id, histogram) -> {
+            result[0] = toLatency(id, minutes, histogram.snapshot(minutes, now));
+            return histogram;
+        });
+        return Optional.ofNullable(result[0]);
+    }
+
+    /** Latency of every target with samples in the window, slowest p95 first. */
+    public List<Latency> latencies(int minutes) {
+        List<Latency> result = new ArrayList<>(histograms.size());
+        for (Long targetId : histograms.keySet()) {
+            latency(targetId, minutes).filter(latency -> latency.samples() > 0).ifPresent(result::add);
+        }
+        result.sort((a, b) -> Long.compare(b.p95Micros(), a.p95Micros()));
+        return result;
+    }
+
+    private Latency toLatency(long targetId, int minutes, RttHistogram.Snapshot snapshot) {
+        int window = Math.max(1, Math.min(minutes, windowMinutes));
+        return new Latency(targetId, window, snapshot.samples(),
+                snapshot.p50Micros(), snapshot.p95Micros(), snapshot.p99Micros(), snapshot.maxMicros());
+    }
+}
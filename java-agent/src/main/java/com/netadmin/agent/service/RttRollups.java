@@ -0,0 +1,306 @@
+package com.netadmin.agent.service;
+
+import com.netadmin.agent.probe.ProbeResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming per-target RTT aggregates in 1-minute, 5-minute and 1-hour
+ * tumbling windows (min / max / avg / samples / loss).
+ *
+ * Every result updates the open window of each resolution in O(1). A window
+ * is closed when the first result of a later window arrives, or by the
+ * periodic sweep once its end has passed, and only closed windows are
+ * written to {@code check_rollups}. Rows are upserted by
+ * (target_id, resolution, bucket_start) and merged on conflict, so a window
+ * split by an agent restart still ends up as one correct row.
+ */
+@Component
+public class RttRollups {
+
+    private static final Logger logger = LoggerFactory.getLogger(RttRollups.class);
+
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS check_rollups (
+                target_id BIGINT NOT NULL,
+                resolution VARCHAR(4) NOT NULL,
+                bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+                samples INT NOT NULL,
+                ok_samples INT NOT NULL,
+                rtt_samples INT NOT NULL,
+                rtt_min_us INT,
+                rtt_max_us INT,
+                rtt_sum_us BIGINT NOT NULL DEFAULT 0,
+                rtt_avg_us DOUBLE PRECISION GENERATED ALWAYS AS (rtt_sum_us::float8 / NULLIF(rtt_samples, 0)) STORED,
+                loss DOUBLE PRECISION GENERATED ALWAYS AS (1 - ok_samples::float8 / NULLIF(samples, 0)) STORED,
+                PRIMARY KEY (target_id, resolution, bucket_start)
+            )
+            """;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO check_rollups AS r (target_id, resolution, bucket_start, samples, ok_samples,
+                                            rtt_samples, rtt_min_us, rtt_max_us, rtt_sum_us)
+            SELECT * FROM unnest(?::bigint[], ?::varchar[], ?::timestamptz[], ?::int[], ?::int[],
+                                 ?::int[], ?::int[], ?::int[], ?::bigint[])
+            ON CONFLICT (target_id, resolution, bucket_start) DO UPDATE SET
+                samples = r.samples + EXCLUDED.samples,
+                ok_samples = r.ok_samples + EXCLUDED.ok_samples,
+                rtt_samples = r.rtt_samples + EXCLUDED.rtt_samples,
+                rtt_min_us = LEAST(r.rtt_min_us, EXCLUDED.rtt_min_us),
+                rtt_max_us = GREATEST(r.rtt_max_us, EXCLUDED.rtt_max_us),
+                rtt_sum_us = r.rtt_sum_us + EXCLUDED.rtt_sum_us
+            """;
+
+    /** Window sizes kept for every target. */
+    enum Resolution {
+        M1("1m", 60),
+        M5("5m", 300),
+        H1("1h", 3600);
+
+        private final String label;
+        private final long micros;
+
+        Resolution(String label, long seconds) {
+            this.label = label;
+            this.micros = seconds * 1_000_000L;
+        }
+    }
+
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int maxPending;
+    private final Map<Long, TargetWindows> targets = new ConcurrentHashMap<>();
+    private final Queue<ClosedWindow> closed = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService flusher;
+    private final Counter rowsWritten;
+    private final Counter rowsDropped;
+
+    public RttRollups(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.monitoring.rollups.enabled:true}") boolean enabled,
+            @Value("${app.monitoring.rollups.flush-interval-ms:30000}") long flushIntervalMs,
+            @Value("${app.monitoring.rollups.max-pending:500000}") int maxPending) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.flushInterval = Duration.ofMillis(Math.max(1000, flushIntervalMs));
+        this.maxPending = Math.max(1000, maxPending);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("RttRollups").factory());
+        this.rowsWritten = Counter.builder("netadmin.rollups.rows")
+                .description("Closed rollup windows written to check_rollups")
+                .register(meterRegistry);
+        this.rowsDropped = Counter.builder("netadmin.rollups.dropped")
+                .description("Closed rollup windows dropped while the database was unavailable")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            logger.info("RTT rollups disabled");
+            return;
+        }
+        try {
+            jdbcTemplate.execute(CREATE_TABLE_SQL);
+        } catch (Exception e) {
+            logger.error("Failed to create check_rollups table: {}", e.getMessage());
+        }
+        long intervalMs = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::sweepAndFlush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("📈 RTT rollups (1m/5m/1h) flushing every {}ms", intervalMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        if (enabled) {
+            // Windows still open are lost by design; closed ones are not
+            flush();
+        }
+    }
+
+    /**
+     * Fold one probe result into the open windows of its target. O(1).
+     */
+    public void record(Long targetId, ProbeResult result) {
+        if (!enabled) {
+            return;
+        }
+        Instant checkedAt = result.checkedAt();
+        long micros = checkedAt.getEpochSecond() * 1_000_000L + checkedAt.getNano() / 1000;
+        boolean up = result.isUp();
+        long rttMicros = result.rttMicros();
+        // compute() keeps add and the sweep's removal of idle entries atomic per target
+        targets.compute(targetId, (id, windows) -> {
+            TargetWindows target = windows != null ? windows : new TargetWindows(id);
+            target.add(micros, up, rttMicros);
+            return target;
+        });
+    }
+
+    private void sweepAndFlush() {
+        long nowMicros = System.currentTimeMillis() * 1000L;
+        for (Long targetId : targets.keySet()) {
+            targets.computeIfPresent(targetId, (id, windows) -> windows.closeExpired(nowMicros) ? null : windows);
+        }
+        flush();
+    }
+
+    private void flush() {
+        List<ClosedWindow> batch = new ArrayList<>();
+        ClosedWindow window;
+        while ((window = closed.poll()) != null) {
+            batch.add(window);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            write(batch);
+            rowsWritten.increment(batch.size());
+            logger.debug("📈 Flushed {} rollup windows", batch.size());
+        } catch (Exception e) {
+            int kept = Math.min(batch.size(), Math.max(0, maxPending - closed.size()));
+            closed.addAll(batch.subList(batch.size() - kept, batch.size()));
+            if (kept < batch.size()) {
+                rowsDropped.increment(batch.size() - kept);
+            }
+            logger.error("❌ Rollup flush failed, {} windows kept for retry: {}", kept, e.getMessage());
+        }
+    }
+
+    private void write(List<ClosedWindow> batch) {
+        int size = batch.size();
+        Long[] targetIds = new Long[size];
+        String[] resolutions = new String[size];
+        String[] starts = new String[size];
+        Integer[] samples = new Integer[size];
+        Integer[] okSamples = new Integer[size];
+        Integer[] rttSamples = new Integer[size];
+        Integer[] rttMin = new Integer[size];
+        Integer[] rttMax = new Integer[size];
+        Long[] rttSum = new Long[size];
+        for (int i = 0; i < size; i++) {
+            ClosedWindow w = batch.get(i);
+            targetIds[i] = w.targetId();
+            resolutions[i] = w.resolution().label;
+            starts[i] = Instant.ofEpochSecond(w.startMicros() / 1_000_000L).toString();
+            samples[i] = w.samples();
+            okSamples[i] = w.okSamples();
+            rttSamples[i] = w.rttSamples();
+            rttMin[i] = w.rttSamples() > 0 ? (int) w.rttMin() : null;
+            rttMax[i] = w.rttSamples() > 0 ? (int) w.rttMax() : null;
+            rttSum[i] = w.rttSum();
+        }
+
+        jdbcTemplate.update(UPSERT_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("bigint", targetIds));
+            ps.setArray(2, connection.createArrayOf("varchar", resolutions));
+            ps.setArray(3, connection.createArrayOf("timestamptz", starts));
+            ps.setArray(4, connection.createArrayOf("int4", samples));
+            ps.setArray(5, connection.createArrayOf("int4", okSamples));
+            ps.setArray(6, connection.createArrayOf("int4", rttSamples));
+            ps.setArray(7, connection.createArrayOf("int4", rttMin));
+            ps.setArray(8, connection.createArrayOf("int4", rttMax));
+            ps.setArray(9, connection.createArrayOf("bigint", rttSum));
+        });
+    }
+
+    private record ClosedWindow(long targetId, Resolution resolution, long startMicros, int samples,
+                                int okSamples, int rttSamples, long rttMin, long rttMax, long rttSum) {
+    }
+
+    /**
+     * Open windows of one target, one per resolution. Only touched inside
+     * {@code targets.compute*}, which serializes access per target.
+     */
+    private final class TargetWindows {
+        private final long targetId;
+        private final long[] start = new long[RESOLUTIONS.length];
+        private final int[] samples = new int[RESOLUTIONS.length];
+        private final int[] okSamples = new int[RESOLUTIONS.length];
+        private final int[] rttSamples = new int[RESOLUTIONS.length];
+        private final long[] rttMin = new long[RESOLUTIONS.length];
+        private final long[] rttMax = new long[RESOLUTIONS.length];
+        private final long[] rttSum = new long[RESOLUTIONS.length];
+
+        private TargetWindows(Long targetId) {
+            this.targetId = targetId;
+        }
+
+        private void add(long micros, boolean up, long rttMicros) {
+            for (int r = 0; r < RESOLUTIONS.length; r++) {
+                long windowStart = micros - Math.floorMod(micros, RESOLUTIONS[r].micros);
+                if (samples[r] > 0 && start[r] != windowStart) {
+                    close(r);
+                }
+                if (samples[r] == 0) {
+                    start[r] = windowStart;
+                    rttMin[r] = Long.MAX_VALUE;
+                    rttMax[r] = Long.MIN_VALUE;
+                }
+                samples[r]++;
+                if (up) {
+                    okSamples[r]++;
+                }
+                if (rttMicros >= 0) {
+                    rttSamples[r]++;
+                    rttMin[r] = Math.min(rttMin[r], rttMicros);
+                    rttMax[r] = Math.max(rttMax[r], rttMicros);
+                    rttSum[r] += rttMicros;
+                }
+            }
+        }
+
+        /**
+         * Close windows whose end has passed.
+         *
+         * @return true if no window is open any more (entry can be dropped)
+         */
+        private boolean closeExpired(long nowMicros) {
+            boolean empty = true;
+            for (int r = 0; r < RESOLUTIONS.length; r++) {
+                if (samples[r] > 0 && start[r] + RESOLUTIONS[r].micros <= nowMicros) {
+                    close(r);
+                }
+                empty &= samples[r] == 0;
+            }
+            return empty;
+        }
+
+        private void close(int r) {
+            closed.add(new ClosedWindow(targetId, RESOLUTIONS[r], start[r], samples[r], okSamples[r],
+                    rttSamples[r], rttMin[r], rttMax[r], rttSum[r]));
+            samples[r] = 0;
+            okSamples[r] = 0;
+            rttSamples[r] = 0;
+            rttSum[r] = 0;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.netadmin.agent.service;
+
+/**
+ * A target that is currently on the timing wheel.
+ *
+ * The spec is immutable so a published schedule snapshot never changes under
+ * a reader: a changed hostname or probe produces a new entry via
+ * {@link #withSpec} that keeps the running {@link #timeout} (and so the
+ * target's phase); a changed interval replaces the timeout.
+ */
+final class ScheduledTarget {
+
+    private final TargetSpec spec;
+    private volatile HashedTimingWheel.Timeout timeout;
+
+    ScheduledTarget(TargetSpec spec) {
+        this.spec = spec;
+    }
+
+    private ScheduledTarget(TargetSpec spec, HashedTimingWheel.Timeout timeout) {
+        this.spec = spec;
+        this.timeout = timeout;
+    }
+
+    TargetSpec spec() {
+        return spec;
+    }
+
+    /** Same timer, new spec. */
+    ScheduledTarget withSpec(TargetSpec spec) {
+        return new ScheduledTarget(spec, timeout);
+    }
+
+    void replaceTimeout(HashedTimingWheel.Timeout timeout) {
+        HashedTimingWheel.Timeout previous = this.timeout;
+        this.timeout = timeout;
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    void cancel() {
+        HashedTimingWheel.Timeout current = timeout;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+}
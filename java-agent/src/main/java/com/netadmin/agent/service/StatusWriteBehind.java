@@ -0,0 +1,192 @@
+package com.netadmin.agent.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind buffer for target status (last_status / last_check).
+ *
+ * Checks only record their outcome here; a single flusher thread writes all
+ * buffered rows with one {@code UPDATE ... FROM unnest(...)} statement every
+ * flush interval, or earlier once a full batch is waiting. Only the latest
+ * status per target is kept, so the write rate depends on the flush
+ * frequency, not on target count x check rate.
+ *
+ * Thread Safety:
+ * - {@link #submit} is lock-free and called from check threads
+ * - Only the flusher thread talks to the database
+ * - A failed flush puts its rows back unless a newer status arrived meanwhile
+ */
+@Component
+public class StatusWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatusWriteBehind.class);
+
+    private static final String BATCH_UPDATE_SQL = """
+            UPDATE monitored_targets AS t
+            SET last_status = u.status, last_check = u.checked_at
+            FROM unnest(?::bigint[], ?::varchar[], ?::timestamp[]) AS u(id, status, checked_at)
+            WHERE t.id = u.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final Map<Long, PendingStatus> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private final Timer flushTimer;
+    private final Counter rowsWritten;
+    private final Counter flushFailures;
+
+    public StatusWriteBehind(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.monitoring.write-behind.flush-interval-ms:1000}") long flushIntervalMs,
+            @Value("${app.monitoring.write-behind.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushInterval = Duration.ofMillis(Math.max(10, flushIntervalMs));
+        this.batchSize = Math.max(1, batchSize);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("StatusWriteBehind").factory());
+        this.flushTimer = Timer.builder("netadmin.writebehind.flush")
+                .description("Duration of one batched status flush")
+                .register(meterRegistry);
+        this.rowsWritten = Counter.builder("netadmin.writebehind.rows")
+                .description("Target status rows written by batched flushes")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("netadmin.writebehind.failures")
+                .description("Batched status flushes that failed and were retried")
+                .register(meterRegistry);
+        Gauge.builder("netadmin.writebehind.pending", pending, Map::size)
+                .description("Target statuses waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        long intervalMs = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("💾 Status write-behind started (every {}ms or {} rows)", intervalMs, batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Last chance for statuses recorded after the final scheduled flush
+        flushSafely();
+    }
+
+    /**
+     * Buffer the outcome of a check. Replaces any unflushed status of the same target.
+     */
+    public void submit(Long targetId, String status, LocalDateTime checkTime) {
+        pending.put(targetId, new PendingStatus(status, checkTime));
+        if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushSafely);
+            } catch (RuntimeException e) {
+                // Shutting down: the final flush in shutdown() picks it up
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flushSafely() {
+        flushRequested.set(false);
+        try {
+            while (!pending.isEmpty()) {
+                if (flushBatch() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            flushFailures.increment();
+            logger.error("❌ Status flush failed, {} rows kept for retry: {}", pending.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Take up to batchSize rows out of the buffer and write them in one statement.
+     *
+     * @return number of rows taken
+     */
+    private int flushBatch() {
+        List<Long> ids = new ArrayList<>(Math.min(batchSize, pending.size()));
+        List<PendingStatus> statuses = new ArrayList<>(ids.size());
+        Iterator<Long> keys = pending.keySet().iterator();
+        while (keys.hasNext() && ids.size() < batchSize) {
+            Long targetId = keys.next();
+            PendingStatus status = pending.remove(targetId);
+            if (status != null) {
+                ids.add(targetId);
+                statuses.add(status);
+            }
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            write(ids, statuses);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < ids.size(); i++) {
+                pending.putIfAbsent(ids.get(i), statuses.get(i));
+            }
+            throw e;
+        }
+        flushTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        rowsWritten.increment(ids.size());
+        logger.debug("💾 Flushed {} target statuses", ids.size());
+        return ids.size();
+    }
+
+    private void write(List<Long> ids, List<PendingStatus> statuses) {
+        Long[] idArray = ids.toArray(Long[]::new);
+        String[] statusArray = new String[statuses.size()];
+        Timestamp[] checkedAtArray = new Timestamp[statuses.size()];
+        for (int i = 0; i < statuses.size(); i++) {
+            statusArray[i] = statuses.get(i).status();
+            checkedAtArray[i] = Timestamp.valueOf(statuses.get(i).checkTime());
+        }
+
+        jdbcTemplate.update(BATCH_UPDATE_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("bigint", idArray));
+            ps.setArray(2, connection.createArrayOf("varchar", statusArray));
+            ps.setArray(3, connection.createArrayOf("timestamp", checkedAtArray));
+        });
+    }
+
+    private record PendingStatus(String status, LocalDateTime checkTime) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.netadmin.agent.service;
+
+import com.netadmin.agent.model.MonitoredTarget;
+import com.netadmin.agent.probe.ProbeType;
+
+import java.util.Objects;
+
+/**
+ * Immutable snapshot of the configuration of a monitored target:
+ * everything the scheduler needs to decide when and how to check it.
+ */
+public record TargetSpec(Long id, String name, String hostname, int intervalSeconds,
+                         ProbeType probeType, Integer probePort, String probePath) {
+
+    public static TargetSpec from(MonitoredTarget target) {
+        return new TargetSpec(
+                target.getId(),
+                target.getName(),
+                target.getHostname(),
+                target.getIntervalSeconds() != null ? target.getIntervalSeconds() : 0,
+                ProbeType.parse(target.getProbeType()),
+                target.getProbePort(),
+                target.getProbePath());
+    }
+
+    public boolean hasValidInterval() {
+        return intervalSeconds > 0;
+    }
+
+    /** Same interval: the running timer (and its phase) can be kept. */
+    public boolean sameSchedule(TargetSpec other) {
+        return intervalSeconds == other.intervalSeconds;
+    }
+
+    /** Same host and probe settings: nothing about the check itself changed. */
+    public boolean sameProbe(TargetSpec other) {
+        return Objects.equals(hostname, other.hostname)
+                && probeType == other.probeType
+                && Objects.equals(probePort, other.probePort)
+                && Objects.equals(probePath, other.probePath);
+    }
+}
@@ -0,0 +1,118 @@
+package com.netadmin.agent.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authoritative in-memory status of every scheduled target.
+ *
+ * Seeded from the database when the scheduler loads targets, kept in sync
+ * with config events by the schedule reconciler, and read/written by the
+ * check path without any database round trip. The database copy of
+ * last_status/last_check is write-only from the agent's point of view.
+ *
+ * Thread Safety:
+ * - Entries are immutable and replaced atomically
+ * - Status updates for targets no longer in the table are dropped, so a
+ *   check finishing after its target was removed cannot resurrect it
+ */
+@Component
+public class TargetStateTable {
+
+    private final Map<Long, TargetState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Last known status of a target.
+     *
+     * @param lastStatus      UP / DOWN / ERROR, or null if never checked
+     * @param lastCheck       time of the last known check (seeded from the database), or null
+     * @param intervalSeconds check interval the target is scheduled with
+     * @param checkedThisRun  whether lastCheck comes from a check this agent completed;
+     *                        seeded values may be the last status change, weeks ago
+     */
+    public record TargetState(String lastStatus, LocalDateTime lastCheck, int intervalSeconds,
+                              boolean checkedThisRun) {
+        static final TargetState UNKNOWN = new TargetState(null, null, 0, false);
+    }
+
+    /**
+     * Liveness watermark of the targets sharing one check interval.
+     *
+     * @param checkedThrough every target of the interval completed a check at or
+     *                       after this time; null while any of them has not been
+     *                       checked since the agent started
+     * @param targets        number of targets with this interval
+     */
+    public record Watermark(LocalDateTime checkedThrough, int targets) {
+    }
+
+    public Optional<TargetState> get(Long targetId) {
+        return Optional.ofNullable(states.get(targetId));
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * Add a target with its persisted status; an existing in-memory entry wins
+     * because it is never older than the database.
+     */
+    void seed(Long targetId, String lastStatus, LocalDateTime lastCheck, int intervalSeconds) {
+        states.putIfAbsent(targetId, new TargetState(lastStatus, lastCheck, intervalSeconds, false));
+    }
+
+    /**
+     * Add a target whose status is unknown (e.g. created by a config event),
+     * or move a tracked one to its current interval.
+     */
+    void track(Long targetId, int intervalSeconds) {
+        states.compute(targetId, (id, current) -> {
+            if (current == null) {
+                return new TargetState(null, null, intervalSeconds, false);
+            }
+            return current.intervalSeconds() == intervalSeconds ? current
+                    : new TargetState(current.lastStatus(), current.lastCheck(), intervalSeconds, false);
+        });
+    }
+
+    void remove(Long targetId) {
+        states.remove(targetId);
+    }
+
+    /**
+     * Low watermark of completed checks per check interval, so a slow interval
+     * does not hold back fast ones. Only checks completed by this agent count:
+     * an interval with a target not checked since startup (just added, or its
+     * checks never finish) has no watermark rather than a misleading one.
+     */
+    public Map<Integer, Watermark> checkedThrough() {
+        Map<Integer, LocalDateTime> oldest = new HashMap<>();
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (TargetState state : states.values()) {
+            int interval = state.intervalSeconds();
+            boolean first = counts.merge(interval, 1, Integer::sum) == 1;
+            LocalDateTime lastCheck = state.checkedThisRun() ? state.lastCheck() : null;
+            if (first) {
+                oldest.put(interval, lastCheck);
+            } else if (oldest.get(interval) != null
+                    && (lastCheck == null || lastCheck.isBefore(oldest.get(interval)))) {
+                oldest.put(interval, lastCheck);
+            }
+        }
+        Map<Integer, Watermark> watermarks = new HashMap<>();
+        counts.forEach((interval, count) -> watermarks.put(interval, new Watermark(oldest.get(interval), count)));
+        return watermarks;
+    }
+
+    /** Record a completed check; ignored if the target is no longer tracked. */
+    void update(Long targetId, String status, LocalDateTime checkTime) {
+        states.computeIfPresent(targetId, (id, current) ->
+                new TargetState(status, checkTime, current.intervalSeconds(), true));
+    }
+}
@@ -0,0 +1,50 @@
+package com.netadmin.agent.service;
+
+/**
+ * Classic token bucket: holds up to {@code capacity} tokens and refills at a
+ * fixed rate; one token pays for one message.
+ *
+ * Not thread-safe: callers serialize access.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(int capacity, double perMinute, long nowNanos) {
+        this.capacity = Math.max(1, capacity);
+        this.tokensPerNano = Math.max(perMinute, 0.001) / 60_000_000_000.0;
+        this.tokens = this.capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    boolean hasToken(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= 1;
+    }
+
+    /**
+     * Take one token; the caller checked {@link #hasToken} first.
+     */
+    void take() {
+        tokens -= 1;
+    }
+
+    /**
+     * Nanoseconds until a token is available, 0 if one is already.
+     */
+    long nanosUntilToken(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
@@ -23,6 +23,13 @@ logger = logging.getLogger(__name__)
 BOT_TOKEN = os.getenv("BOT_TOKEN")
 REDIS_HOST = os.getenv("REDIS_HOST", "redis")
 REDIS_PORT = int(os.getenv("REDIS_PORT", 6379))
+ALERT_STREAM_KEY = os.getenv("ALERT_STREAM_KEY", "bot_alerts_stream")
+ALERT_STREAM_GROUP = os.getenv("ALERT_STREAM_GROUP", "telegram_bot")
+# Must be stable across container recreation, or pending entries are orphaned under the old name
+ALERT_STREAM_CONSUMER = os.getenv("ALERT_STREAM_CONSUMER", "bot-1")
+ALERT_STREAM_CLAIM_IDLE_MS = int(os.getenv("ALERT_STREAM_CLAIM_IDLE_MS", "60000"))
+ALERT_DEDUP_TTL = 86400  # seconds a delivered alert id is remembered
+ALERT_PAYLOAD_VERSION = 1  # highest structured alert payload version understood
 
 # Initialize Bot
 bot = Bot(token=BOT_TOKEN)
@@ -263,14 +270,59 @@ async def redis_listener():
                     pass
 
 
+def parse_alert_payload(payload: str):
+    """
+    Decode a versioned JSON alert from the Java Agent.
+
+    Format v1: {"v": 1, "id": ..., "topic": ..., "text": ..., "events": [...]}
+    where each event carries target_id, target, host, from, to, severity,
+    ts, since, rtt_us, probe and detail.
+
+    Returns the decoded dict, or None if it is malformed or of an unknown version.
+    """
+    try:
+        alert = json.loads(payload)
+    except (TypeError, ValueError) as e:
+        logger.warning(f"Malformed alert payload: {e}")
+        return None
+
+    if not isinstance(alert, dict) or alert.get("v") != ALERT_PAYLOAD_VERSION:
+        logger.warning(f"Unsupported alert payload version: {payload[:100]}")
+        return None
+    if "topic" not in alert or "text" not in alert:
+        logger.warning(f"Alert payload without topic/text: {payload[:100]}")
+        return None
+    return alert
+
+
 async def process_alert(data: str):
-    """Process an alert message from Redis."""
+    """
+    Process an alert message from Redis Pub/Sub.
+
+    Accepts the versioned JSON payload as well as the legacy "TOPIC_NAME|MESSAGE".
+    """
+    if data and data.startswith("{"):
+        alert = parse_alert_payload(data)
+        if alert:
+            await deliver_alert(alert["topic"], alert["text"])
+        return
+
+    if not data or "|" not in data:
+        logger.warning(f"Invalid alert format (missing |): {data}")
+        return
+
+    topic_name, text = data.split("|", 1)
+    await deliver_alert(topic_name, text)
+
+
+async def deliver_alert(topic_name: str, text: str) -> bool:
+    """
+    Send an alert to its Telegram topic, falling back to the general chat.
+
+    Returns True once the alert was delivered (or can never be), False if it
+    should be retried later.
+    """
     try:
-        if not data or "|" not in data:
-            logger.warning(f"Invalid alert format (missing |): {data}")
-            return
-        
-        topic_name, text = data.split("|", 1)
         topic_name = topic_name.strip()
         
         logger.info(f"🚨 Alert for topic '{topic_name}': {text[:50]}...")
@@ -282,7 +334,7 @@ async def process_alert(data: str):
             
             if not chat_id:
                 logger.error("❌ TELEGRAM_SUPERGROUP_ID not set - cannot send alert")
-                return
+                return True
             
             # Send to Telegram with retry
             for attempt in range(3):
@@ -294,7 +346,7 @@ async def process_alert(data: str):
                         parse_mode="HTML"
                     )
                     logger.info(f"✅ Alert sent to topic '{topic_name}' (thread_id={thread_id})")
-                    return
+                    return True
                 except Exception as send_error:
                     logger.warning(f"Send attempt {attempt + 1} failed: {send_error}")
                     if attempt < 2:
@@ -304,11 +356,164 @@ async def process_alert(data: str):
             try:
                 await bot.send_message(chat_id=chat_id, text=text, parse_mode="HTML")
                 logger.info("✅ Alert sent to general chat (fallback)")
+                return True
             except Exception as fallback_error:
                 logger.error(f"Fallback send also failed: {fallback_error}")
+                return False
     
     except Exception as e:
         logger.error(f"❌ Alert processing error: {e}", exc_info=True)
+        return False
+
+
+def stream_alert_fields(fields):
+    """
+    Normalize a stream entry to {"id", "topic", "text"}, or None if invalid.
+
+    Entries are either versioned (v, id, payload) or legacy (id, topic, text).
+    """
+    if fields is None:
+        return None
+    if "payload" in fields:
+        return parse_alert_payload(fields["payload"])
+    if "topic" in fields and "text" in fields:
+        return fields
+    return None
+
+
+async def deliver_stream_alert(fields: dict) -> bool:
+    """Deliver a stream alert unless its dedup id was already delivered."""
+    alert_id = fields.get("id")
+    dedup_key = f"bot_alerts:delivered:{alert_id}" if alert_id else None
+
+    if dedup_key and await redis_client.exists(dedup_key):
+        logger.info(f"⏭️ Skipping duplicate alert {alert_id}")
+        return True
+
+    if not await deliver_alert(fields["topic"], fields["text"]):
+        return False
+
+    if dedup_key:
+        await redis_client.set(dedup_key, 1, ex=ALERT_DEDUP_TTL)
+    return True
+
+
+async def claim_orphaned_alerts():
+    """
+    Take over entries other consumers read but never acked (e.g. a consumer
+    name used before a rename), once they have been idle long enough that
+    their owner is presumed dead. They join our pending list and are replayed
+    with it, in stream order.
+    """
+    start_id = "0-0"
+    claimed = 0
+    while True:
+        result = await redis_client.xautoclaim(
+            ALERT_STREAM_KEY, ALERT_STREAM_GROUP, ALERT_STREAM_CONSUMER,
+            min_idle_time=ALERT_STREAM_CLAIM_IDLE_MS,
+            start_id=start_id,
+            count=100,
+            justid=True,
+        )
+        start_id, entry_ids = result[0], result[1]
+        claimed += len(entry_ids)
+        if start_id == "0-0":
+            break
+    if claimed:
+        logger.warning(f"📥 Claimed {claimed} idle pending alerts from other consumers")
+
+
+async def alert_stream_consumer():
+    """
+    Redis Stream consumer for alerts from Java Agent.
+
+    Reads ALERT_STREAM_KEY through the ALERT_STREAM_GROUP consumer group and
+    acks an entry only after it was delivered, so alerts published while the
+    bot was down or reconnecting are picked up instead of lost. On (re)start
+    idle entries of dead consumers are claimed, then the entries this
+    consumer read but never acked are replayed first, and
+    an entry whose delivery fails is retried with backoff before anything
+    newer is read.
+
+    Entry fields: v, id, payload (versioned JSON, see parse_alert_payload), or
+    id, topic, text for agents still on the legacy format. The id is the
+    agent's dedup key: an alert
+    resent from the agent outbox after it already reached the stream is
+    acked without posting it twice.
+    """
+    consecutive_failures = 0
+
+    while True:
+        try:
+            try:
+                await redis_client.xgroup_create(ALERT_STREAM_KEY, ALERT_STREAM_GROUP, id="0", mkstream=True)
+                logger.info(f"📮 Created consumer group '{ALERT_STREAM_GROUP}' on {ALERT_STREAM_KEY}")
+            except redis.ResponseError as e:
+                if "BUSYGROUP" not in str(e):
+                    raise
+
+            await claim_orphaned_alerts()
+            logger.info(f"🎧 Alert stream consumer active: {ALERT_STREAM_KEY} as {ALERT_STREAM_CONSUMER}")
+            consecutive_failures = 0
+
+            # "0" walks our pending (unacked) entries; ">" asks for new ones
+            last_id = "0"
+            delivery_failures = 0
+            while True:
+                response = await redis_client.xreadgroup(
+                    ALERT_STREAM_GROUP, ALERT_STREAM_CONSUMER,
+                    {ALERT_STREAM_KEY: last_id},
+                    count=50,
+                    block=5000 if last_id == ">" else None,
+                )
+                entries = response[0][1] if response else []
+
+                if last_id != ">" and not entries:
+                    logger.info("✅ Pending alerts replayed, waiting for new ones")
+                    last_id = ">"
+                    continue
+
+                for entry_id, fields in entries:
+                    alert = stream_alert_fields(fields)
+                    if fields is None:
+                        # Trimmed away by MAXLEN before we got to it
+                        await redis_client.xack(ALERT_STREAM_KEY, ALERT_STREAM_GROUP, entry_id)
+                    elif alert is None:
+                        logger.warning(f"Invalid alert stream entry {entry_id}: {fields}")
+                        await redis_client.xack(ALERT_STREAM_KEY, ALERT_STREAM_GROUP, entry_id)
+                    elif await deliver_stream_alert(alert):
+                        await redis_client.xack(ALERT_STREAM_KEY, ALERT_STREAM_GROUP, entry_id)
+                        delivery_failures = 0
+                    else:
+                        # Leave it pending and go back to replaying pending entries from
+                        # the start, so it is retried (in order) before anything newer
+                        delivery_failures += 1
+                        retry_delay = min(
+                            REDIS_RECONNECT_BASE_DELAY * (2 ** delivery_failures),
+                            REDIS_RECONNECT_MAX_DELAY
+                        )
+                        logger.warning(f"⏳ Alert {entry_id} not delivered, retrying in {retry_delay} seconds")
+                        await asyncio.sleep(retry_delay)
+                        last_id = "0"
+                        break
+
+                    if last_id != ">":
+                        last_id = entry_id
+
+        except asyncio.CancelledError:
+            logger.info("🛑 Alert stream consumer cancelled")
+            raise
+
+        except Exception as e:
+            consecutive_failures += 1
+            logger.error(f"❌ Alert stream consumer error (attempt {consecutive_failures}): {e}")
+
+            reconnect_delay = min(
+                REDIS_RECONNECT_BASE_DELAY * (2 ** consecutive_failures),
+                REDIS_RECONNECT_MAX_DELAY
+            )
+            logger.info(f"🔄 Reconnecting in {reconnect_delay} seconds...")
+            await asyncio.sleep(reconnect_delay)
 
 async def main():
     """Main entry point."""
@@ -317,15 +522,19 @@ async def main():
     
     # Start Redis Listener as background task
     redis_task = asyncio.create_task(redis_listener())
+    stream_task = asyncio.create_task(alert_stream_consumer())
     
     # Add exception handler
     def handle_redis_exception(task):
         try:
             task.result()
+        except asyncio.CancelledError:
+            pass
         except Exception as e:
             logger.error(f"❌ Redis listener crashed: {e}", exc_info=True)
     
     redis_task.add_done_callback(handle_redis_exception)
+    stream_task.add_done_callback(handle_redis_exception)
     
     try:
         # Start Bot
@@ -333,11 +542,12 @@ async def main():
     finally:
         # Cleanup on shutdown
         logger.info("Shutting down...")
-        redis_task.cancel()
-        try:
-            await redis_task
-        except asyncio.CancelledError:
-            pass
+        for task in (redis_task, stream_task):
+            task.cancel()
+            try:
+                await task
+            except asyncio.CancelledError:
+                pass
 
 if __name__ == "__main__":
     asyncio.run(main())